@@ -9,6 +9,9 @@ module se.lu.ics {
     requires java.sql;
     requires org.xerial.sqlitejdbc;   // modulnamnet är org.xerial.sqlitejdbc
 
+    /* JMX för transaktionsstatistik */
+    requires java.management;
+
     /* (valfritt) om du lägger till slf4j-simple behöver du inte deklarera det här */
 
     /* Öppna paket för FXML / JavaFX reflection */
@@ -21,6 +21,9 @@ public class App extends Application {
 
     private static RecruitmentService recruitmentService;
     private static ReportService reportService;
+    private static TransactionManager transactionManager;
+    private static CheckpointScheduler checkpointScheduler;
+    private static DataVersionMonitor dataVersionMonitor;
 
     @Override
     public void start(Stage stage) throws Exception {
@@ -28,17 +31,41 @@ public class App extends Application {
         /* ───── 1. DataSource från vår singleton ───── */
         DataSource ds = DatabaseService.getDataSource();
 
-        /* ───── 2. Create TransactionManager ───── */
-        TransactionManager transactionManager = new TransactionManager(ds);
+        /* ───── 2. Create TransactionManager (separate pools for writers and readers) ───── */
+        transactionManager = new TransactionManager(ds, DatabaseService.getReadOnlyDataSource(),
+                TransactionManager.DEFAULT_POOL_SIZE, DatabaseService.getReaderCount());
+        if (DatabaseService.isWalMode()) {
+            // One writer thread with a submission queue; checkpoints run in the background
+            transactionManager.enableWriteQueue();
+            checkpointScheduler = new CheckpointScheduler(ds, transactionManager);
+            checkpointScheduler.start();
+        }
+        if (DatabaseService.isGroupCommit()) {
+            transactionManager.enableGroupCommit();
+        }
+        if (DatabaseService.isMetricsEnabled()) {
+            // Per-method statistics over JMX; counting proxies every statement, so it is opt-in
+            transactionManager.setMetricsEnabled(true);
+        }
 
         /* ───── 3. DAO-objekt ───── */
-        RoleDao         roleDao = new RoleDaoJdbc(transactionManager);
-        RecruitmentDao  recDao  = new RecruitmentDaoJdbc(transactionManager, roleDao);
-        ApplicantDao    appDao  = new ApplicantDaoJdbc(transactionManager);
-        InterviewDao    intDao  = new InterviewDaoJdbc(transactionManager, appDao, recDao);
+        // Roles rarely change, so they are served from memory after the first read
+        RoleDao         roleDao = new CachingRoleDao(new RoleDaoJdbc(transactionManager), transactionManager);
+        // Recently used recruitments and applicants are kept in LRU caches bounded by count and memory
+        RecruitmentDao  recDao  = new CachingRecruitmentDao(new RecruitmentDaoJdbc(transactionManager),
+                transactionManager, DatabaseService.getRecruitmentCacheSize(),
+                DatabaseService.getRecruitmentCacheMaxBytes());
+        ApplicantDao    appDao  = new CachingApplicantDao(new ApplicantDaoJdbc(transactionManager),
+                transactionManager, DatabaseService.getApplicantCacheSize(),
+                DatabaseService.getApplicantCacheMaxBytes());
+        InterviewDao    intDao  = new InterviewDaoJdbc(transactionManager);
+
+        // Other processes may change the database too; their commits invalidate the caches
+        dataVersionMonitor = new DataVersionMonitor(DatabaseService.getReadOnlyDataSource(), transactionManager);
+        dataVersionMonitor.start();
 
         /* ───── 4. Initialize recruitment ID counters ───── */
-        try (Connection conn = ds.getConnection()) {
+        try (Connection conn = transactionManager.getConnection()) {
             Recruitment.initializeYearCounters(conn);
         } catch (Exception e) {
             System.err.println("Failed to initialize recruitment counters: " + e.getMessage());
@@ -48,7 +75,7 @@ public class App extends Application {
 
         /* ───── 5. Service-lager ───── */
         recruitmentService = new RecruitmentService(roleDao, recDao, appDao, intDao, transactionManager);
-        reportService = new ReportService(recDao, appDao, intDao, transactionManager);
+        reportService = new ReportService(roleDao, recDao, appDao, intDao, transactionManager);
 
         /* ───── 6. Ladda FXML ───── */
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/MainView.fxml"));
@@ -68,6 +95,19 @@ public class App extends Application {
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        if (dataVersionMonitor != null) {
+            dataVersionMonitor.close();
+        }
+        if (checkpointScheduler != null) {
+            checkpointScheduler.close();
+        }
+        if (transactionManager != null) {
+            transactionManager.close();
+        }
+    }
+
     /**
      * Get the recruitment service instance
      * @return The recruitment service
@@ -33,19 +33,20 @@ import se.lu.ics.service.ReportService;
  * Controller for the main view of the application.
  */
 public class MainViewController {
-    @FXML private TableView<Recruitment> recruitmentTable;
-    @FXML private TableColumn<Recruitment, String> idColumn;
-    @FXML private TableColumn<Recruitment, String> roleColumn;
-    @FXML private TableColumn<Recruitment, String> deadlineColumn;
-    @FXML private TableColumn<Recruitment, Integer> applicantsColumn;
-    @FXML private TableColumn<Recruitment, String> statusColumn;
+    // The tables hold projection rows; the full entity is loaded when a row is opened
+    @FXML private TableView<RecruitmentRow> recruitmentTable;
+    @FXML private TableColumn<RecruitmentRow, String> idColumn;
+    @FXML private TableColumn<RecruitmentRow, String> roleColumn;
+    @FXML private TableColumn<RecruitmentRow, String> deadlineColumn;
+    @FXML private TableColumn<RecruitmentRow, Integer> applicantsColumn;
+    @FXML private TableColumn<RecruitmentRow, String> statusColumn;
 
-    @FXML private TableView<Interview> interviewTable;
-    @FXML private TableColumn<Interview, String> interviewDateColumn;
-    @FXML private TableColumn<Interview, String> interviewApplicantColumn;
-    @FXML private TableColumn<Interview, String> interviewRoleColumn;
-    @FXML private TableColumn<Interview, String> interviewerColumn;
-    @FXML private TableColumn<Interview, String> interviewStatusColumn;
+    @FXML private TableView<InterviewRow> interviewTable;
+    @FXML private TableColumn<InterviewRow, String> interviewDateColumn;
+    @FXML private TableColumn<InterviewRow, String> interviewApplicantColumn;
+    @FXML private TableColumn<InterviewRow, String> interviewRoleColumn;
+    @FXML private TableColumn<InterviewRow, String> interviewerColumn;
+    @FXML private TableColumn<InterviewRow, String> interviewStatusColumn;
 
     @FXML private Label avgDaysLabel;
     @FXML private Label avgInterviewsLabel;
@@ -117,7 +118,7 @@ public class MainViewController {
     private void setupRecruitmentTable() {
         idColumn.setCellValueFactory(new PropertyValueFactory<>("id"));
         roleColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getRole().getTitle()));
+            new SimpleStringProperty(cellData.getValue().getRoleTitle()));
         deadlineColumn.setCellValueFactory(cellData -> 
             new SimpleStringProperty(cellData.getValue().getApplicationDeadline().format(dateFormatter)));
         applicantsColumn.setCellValueFactory(cellData -> 
@@ -142,9 +143,9 @@ public class MainViewController {
         interviewDateColumn.setCellValueFactory(cellData -> 
             new SimpleStringProperty(cellData.getValue().getDateTime().format(dateTimeFormatter)));
         interviewApplicantColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getApplicant().getFullName()));
+            new SimpleStringProperty(cellData.getValue().getApplicantName()));
         interviewRoleColumn.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getRecruitment().getRole().getTitle()));
+            new SimpleStringProperty(cellData.getValue().getRoleTitle()));
         interviewerColumn.setCellValueFactory(cellData -> 
             new SimpleStringProperty(cellData.getValue().getInterviewer()));
         interviewStatusColumn.setCellValueFactory(cellData -> 
@@ -164,22 +165,59 @@ public class MainViewController {
     }
 
     private void loadRecruitments() {
-        List<Recruitment> recruitments = recruitmentService.getAllRecruitments();
-        
-        // Set the applicant count for each recruitment
-        for (Recruitment recruitment : recruitments) {
-            List<Applicant> applicants = recruitmentService.getApplicantsForRecruitment(recruitment);
-            recruitment.setApplicantCount(applicants.size());
-        }
+        // Only the displayed fields, with applicant counts, from one query
+        List<RecruitmentRow> recruitments = recruitmentService.getRecruitmentRows();
         
         recruitmentTable.setItems(FXCollections.observableArrayList(recruitments));
     }
 
     private void loadInterviews() {
-        List<Interview> interviews = recruitmentService.getAllInterviews();
+        List<InterviewRow> interviews = recruitmentService.getInterviewRows();
         interviewTable.setItems(FXCollections.observableArrayList(interviews));
     }
 
+    /**
+     * Load the full recruitment for the selected row of the recruitment table
+     * @param noSelectionMessage The message to show if no row is selected
+     * @return The recruitment, or null if no row is selected or the recruitment no longer exists
+     */
+    private Recruitment openSelectedRecruitment(String noSelectionMessage) {
+        RecruitmentRow row = recruitmentTable.getSelectionModel().getSelectedItem();
+        if (row == null) {
+            showError("No Selection", noSelectionMessage);
+            return null;
+        }
+        
+        Optional<Recruitment> recruitment = recruitmentService.findRecruitment(row.getId());
+        if (recruitment.isEmpty()) {
+            showError("Not Found", "Recruitment " + row.getId() + " no longer exists.");
+            loadRecruitments();
+            return null;
+        }
+        return recruitment.get();
+    }
+
+    /**
+     * Load the full interview for the selected row of the interview table
+     * @param noSelectionMessage The message to show if no row is selected
+     * @return The interview, or null if no row is selected or the interview no longer exists
+     */
+    private Interview openSelectedInterview(String noSelectionMessage) {
+        InterviewRow row = interviewTable.getSelectionModel().getSelectedItem();
+        if (row == null) {
+            showError("No Selection", noSelectionMessage);
+            return null;
+        }
+        
+        Optional<Interview> interview = recruitmentService.findInterview(row.getId());
+        if (interview.isEmpty()) {
+            showError("Not Found", "The interview no longer exists.");
+            loadInterviews();
+            return null;
+        }
+        return interview.get();
+    }
+
     private void updateStatistics() {
         try {
             // Calculate average days to acceptance
@@ -367,9 +405,8 @@ public class MainViewController {
     
     @FXML
     private void handleViewApplicants() {
-        Recruitment selectedRecruitment = recruitmentTable.getSelectionModel().getSelectedItem();
+        Recruitment selectedRecruitment = openSelectedRecruitment("Please select a recruitment to view applicants.");
         if (selectedRecruitment == null) {
-            showError("No Selection", "Please select a recruitment to view applicants.");
             return;
         }
         
@@ -707,9 +744,8 @@ public class MainViewController {
     }
     
     private void handleEditRecruitment() {
-        Recruitment selectedRecruitment = recruitmentTable.getSelectionModel().getSelectedItem();
+        Recruitment selectedRecruitment = openSelectedRecruitment("Please select a recruitment to edit.");
         if (selectedRecruitment == null) {
-            showError("No Selection", "Please select a recruitment to edit.");
             return;
         }
         
@@ -767,7 +803,8 @@ public class MainViewController {
     }
     
     private void handleDeleteRecruitment() {
-        Recruitment selectedRecruitment = recruitmentTable.getSelectionModel().getSelectedItem();
+        // Deleting only needs the ID, so the full recruitment is not loaded
+        RecruitmentRow selectedRecruitment = recruitmentTable.getSelectionModel().getSelectedItem();
         if (selectedRecruitment == null) {
             showError("No Selection", "Please select a recruitment to delete.");
             return;
@@ -792,9 +829,8 @@ public class MainViewController {
     }
     
     private void handleCompleteInterview() {
-        Interview selectedInterview = interviewTable.getSelectionModel().getSelectedItem();
+        Interview selectedInterview = openSelectedInterview("Please select an interview to mark as completed.");
         if (selectedInterview == null) {
-            showError("No Selection", "Please select an interview to mark as completed.");
             return;
         }
         
@@ -897,9 +933,8 @@ public class MainViewController {
     }
     
     private void handleRescheduleInterview() {
-        Interview selectedInterview = interviewTable.getSelectionModel().getSelectedItem();
+        Interview selectedInterview = openSelectedInterview("Please select an interview to reschedule.");
         if (selectedInterview == null) {
-            showError("No Selection", "Please select an interview to reschedule.");
             return;
         }
         
@@ -950,9 +985,8 @@ public class MainViewController {
     }
     
     private void handleCancelInterview() {
-        Interview selectedInterview = interviewTable.getSelectionModel().getSelectedItem();
+        Interview selectedInterview = openSelectedInterview("Please select an interview to cancel.");
         if (selectedInterview == null) {
-            showError("No Selection", "Please select an interview to cancel.");
             return;
         }
         
@@ -1036,13 +1070,30 @@ public class MainViewController {
             Recruitment popularRecruitment = reportService.getMostPopularRecruitment();
             globalGrid.add(new Label("Most Popular Recruitment:"), 0, 6);
             if (popularRecruitment != null) {
-                // Get applicant count through recruitmentService
-                List<Applicant> applicants = recruitmentService.getApplicantsForRecruitment(popularRecruitment);
                 globalGrid.add(new Label(popularRecruitment.getRole().getTitle() + " (" + 
-                              applicants.size() + " applicants)"), 1, 6);
+                              popularRecruitment.getApplicantCount() + " applicants)"), 1, 6);
             } else {
                 globalGrid.add(new Label("No data available"), 1, 6);
             }
+            
+            // Leaderboard of the recruitments with the most applicants
+            List<LeaderboardEntry<Recruitment>> leaderboard = reportService.getRecruitmentLeaderboard(5);
+            globalGrid.add(new Label("Top Recruitments:"), 0, 7);
+            if (!leaderboard.isEmpty()) {
+                StringBuilder topText = new StringBuilder();
+                for (LeaderboardEntry<Recruitment> entry : leaderboard) {
+                    if (topText.length() > 0) {
+                        topText.append("\n");
+                    }
+                    topText.append(entry.getRank()).append(". ")
+                           .append(entry.getItem().getId()).append(" - ")
+                           .append(entry.getItem().getRole().getTitle())
+                           .append(" (").append(entry.getApplicantCount()).append(" applicants)");
+                }
+                globalGrid.add(new Label(topText.toString()), 1, 7);
+            } else {
+                globalGrid.add(new Label("No data available"), 1, 7);
+            }
         } catch (Exception e) {
             System.err.println("Error generating statistics: " + e.getMessage());
             globalGrid.add(new Label("Error loading statistics: " + e.getMessage()), 0, 0, 2, 1);
@@ -1,8 +1,14 @@
 package se.lu.ics.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import se.lu.ics.model.Applicant;
+import se.lu.ics.model.BatchResult;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.SortOrder;
 
 /**
  * Data Access Object interface for Applicant entities.
@@ -22,6 +28,38 @@ public interface ApplicantDao {
      */
     List<Applicant> findAll();
     
+    /**
+     * Find one page of applicants, sorted by ID, using keyset pagination
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Applicant> findAll(String afterId, int limit, SortOrder order);
+    
+    /**
+     * Pass every applicant to an action while reading them from an open cursor, without building a list.
+     * The action runs inside the read transaction; the connection is released when this method returns,
+     * also if the action throws.
+     * @param action The action to run for each applicant
+     */
+    void forEach(Consumer<? super Applicant> action);
+    
+    /**
+     * Pass every applicant to an action while reading them from an open cursor, without building a list
+     * @param fetchSize The number of rows the driver should fetch at a time
+     * @param action The action to run for each applicant
+     */
+    void forEach(int fetchSize, Consumer<? super Applicant> action);
+    
+    /**
+     * Find many applicants at once, one query per chunk of IDs that fits SQLite's parameter limit
+     * @param ids The applicant IDs; duplicates and nulls are ignored
+     * @return Map from ID to applicant; IDs that do not exist are absent
+     */
+    Map<String, Applicant> findAllByIds(Collection<String> ids);
+    
     /**
      * Insert a new applicant
      * @param applicant The applicant to insert
@@ -34,6 +72,30 @@ public interface ApplicantDao {
      */
     void update(Applicant applicant);
     
+    /**
+     * Insert many applicants with JDBC batches, one transaction per chunk of rows.
+     * A row that fails does not stop the others; it is listed in the result.
+     * @param applicants The applicants to insert
+     * @return Which rows failed and why
+     */
+    BatchResult insertAll(List<Applicant> applicants);
+    
+    /**
+     * Update many applicants with JDBC batches, one transaction per chunk of rows.
+     * A row that fails does not stop the others; it is listed in the result. An applicant that does not exist counts as failed.
+     * @param applicants The applicants to update
+     * @return Which rows failed and why
+     */
+    BatchResult updateAll(List<Applicant> applicants);
+    
+    /**
+     * Link many applicants to a recruitment with JDBC batches; applicants already linked are left as they are
+     * @param recruitmentId The recruitment ID
+     * @param applicants The applicants, which must already be stored
+     * @return Which links failed and why
+     */
+    BatchResult addAllToRecruitment(String recruitmentId, List<Applicant> applicants);
+    
     /**
      * Delete an applicant
      * @param id The ID of the applicant to delete
@@ -47,6 +109,17 @@ public interface ApplicantDao {
      */
     List<Applicant> findByRecruitment(String recruitmentId);
     
+    /**
+     * Find one page of the applicants for a recruitment, sorted by ID, using keyset pagination
+     * @param recruitmentId The recruitment ID
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Applicant> findByRecruitment(String recruitmentId, String afterId, int limit, SortOrder order);
+    
     /**
      * Count all applicants in the system
      * @return The total number of applicants
@@ -7,17 +7,55 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import se.lu.ics.exception.DataAccessException;
 import se.lu.ics.model.Applicant;
+import se.lu.ics.model.BatchResult;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.SortOrder;
 
 /**
  * JDBC implementation of the ApplicantDao interface.
  */
 public class ApplicantDaoJdbc implements ApplicantDao {
     
+    /** Applicant columns read by {@link #map(RowDecoder)}, in the order of the index constants below */
+    static final String[] COLUMNS = {"id", "first_name", "last_name", "email", "phone", "application_date", "rank"};
+    static final int ID = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int EMAIL = 3;
+    private static final int PHONE = 4;
+    private static final int APPLICATION_DATE = 5;
+    private static final int RANK = 6;
+    
+    /** Rows fetched at a time when streaming */
+    private static final int DEFAULT_FETCH_SIZE = 256;
+    
+    private static final String SELECT =
+        "SELECT id, first_name, last_name, email, phone, application_date, rank FROM applicants ";
+    
+    private static final String INSERT =
+        "INSERT INTO applicants (id, first_name, last_name, email, phone, application_date, rank) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE =
+        "UPDATE applicants SET first_name = ?, last_name = ?, email = ?, " +
+        "phone = ?, application_date = ?, rank = ? WHERE id = ?";
+    
+    private static final String INSERT_APPLICATION =
+        "INSERT OR IGNORE INTO applications (applicant_id, recruitment_id, application_date) VALUES (?, ?, ?)";
+    
+    private static final String SELECT_BY_RECRUITMENT =
+        "SELECT a.id, a.first_name, a.last_name, a.email, a.phone, a.application_date, a.rank " +
+        "FROM applicants a JOIN applications app ON a.id = app.applicant_id ";
+    
     private final TransactionManager transactionManager;
     
     /**
@@ -29,55 +67,55 @@ public class ApplicantDaoJdbc implements ApplicantDao {
     }
     
     /**
-     * Maps a ResultSet row to an Applicant object
-     * @param rs The ResultSet containing applicant data
+     * Maps a row to an Applicant object
+     * @param row The decoder for the applicant columns, see {@link #COLUMNS}
      * @return A new Applicant object
      * @throws SQLException If a database access error occurs
      */
-    private Applicant map(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String firstName = rs.getString("first_name");
-        String lastName = rs.getString("last_name");
-        String email = rs.getString("email");
-        String phone = rs.getString("phone");
+    static Applicant map(RowDecoder row) throws SQLException {
+        String id = row.getString(ID);
         
-        // Fix for timestamp-based application_date
-        LocalDate applicationDate;
-        try {
-            // First try to get as SQL Date
-            java.sql.Date date = rs.getDate("application_date");
-            if (date != null) {
-                applicationDate = date.toLocalDate();
-            } else {
-                // If that fails, try to get as timestamp/long
-                long timestamp = rs.getLong("application_date");
-                // Convert from milliseconds to LocalDate
-                applicationDate = java.time.Instant.ofEpochMilli(timestamp)
-                    .atZone(java.time.ZoneId.systemDefault())
-                    .toLocalDate();
-            }
-        } catch (Exception e) {
+        LocalDate applicationDate = row.getDate(APPLICATION_DATE);
+        if (applicationDate == null) {
             // Fallback to current date if there's a problem with the date format
             applicationDate = LocalDate.now();
-            System.err.println("Error parsing date for applicant " + id + ": " + e.getMessage());
+            System.err.println("Error parsing date for applicant " + id + ": " + row.getString(APPLICATION_DATE));
         }
         
-        int rank = rs.getInt("rank");
-        
-        return new Applicant(id, firstName, lastName, email, phone, applicationDate, rank);
+        return new Applicant(id, row.getString(FIRST_NAME), row.getString(LAST_NAME), row.getString(EMAIL),
+                             row.getString(PHONE), applicationDate, row.getInt(RANK));
+    }
+    
+    /**
+     * Gets the applicant of a row from the identity map, mapping and adding it the first time
+     * @param row The decoder for the applicant columns, see {@link #COLUMNS}
+     * @param identities The identity map of the current transaction
+     * @return The one Applicant object for the row's ID in this unit of work
+     * @throws SQLException If a database access error occurs
+     */
+    static Applicant resolve(RowDecoder row, IdentityMap identities) throws SQLException {
+        String id = row.getString(ID);
+        Applicant applicant = identities.get(Applicant.class, id);
+        return applicant != null ? applicant : identities.put(Applicant.class, id, map(row));
     }
     
     @Override
     public Optional<Applicant> find(String id) {
-        String sql = "SELECT * FROM applicants WHERE id = ?";
+        String sql = SELECT + "WHERE id = ?";
+        
+        IdentityMap identities = transactionManager.identityMap();
+        Applicant known = identities != null ? identities.get(Applicant.class, id) : null;
+        if (known != null) {
+            return Optional.of(known);
+        }
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, id);
                 ResultSet rs = pstmt.executeQuery();
                 
                 if (rs.next()) {
-                    return Optional.of(map(rs));
+                    return Optional.of(resolve(new RowDecoder(rs, "", COLUMNS), transactionManager.identityMap()));
                 }
                 return Optional.empty();
             } catch (SQLException e) {
@@ -89,14 +127,16 @@ public class ApplicantDaoJdbc implements ApplicantDao {
     @Override
     public List<Applicant> findAll() {
         List<Applicant> applicants = new ArrayList<>();
-        String sql = "SELECT * FROM applicants";
+        String sql = SELECT;
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql);
                  ResultSet rs = pstmt.executeQuery()) {
                 
+                RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                IdentityMap identities = transactionManager.identityMap();
                 while (rs.next()) {
-                    applicants.add(map(rs));
+                    applicants.add(resolve(row, identities));
                 }
                 return applicants;
             } catch (SQLException e) {
@@ -105,32 +145,96 @@ public class ApplicantDaoJdbc implements ApplicantDao {
         });
     }
     
+    @Override
+    public Page<Applicant> findAll(String afterId, int limit, SortOrder order) {
+        String sql = SELECT + Keyset.clauses(null, "id", afterId, limit, order);
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                Keyset.bind(pstmt, 1, afterId, limit);
+                return Keyset.page(readAll(pstmt, transactionManager.identityMap()), limit, Applicant::getId);
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding a page of applicants after: " + afterId, e);
+            }
+        });
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Applicant> action) {
+        forEach(DEFAULT_FETCH_SIZE, action);
+    }
+    
+    @Override
+    public void forEach(int fetchSize, Consumer<? super Applicant> action) {
+        String sql = SELECT;
+        
+        transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setFetchSize(fetchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    // Applicants already materialized are reused, but streamed ones are not added:
+                    // the identity map would otherwise grow with the table
+                    RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                    IdentityMap identities = transactionManager.identityMap();
+                    while (rs.next()) {
+                        Applicant applicant = identities.get(Applicant.class, row.getString(ID));
+                        action.accept(applicant != null ? applicant : map(row));
+                    }
+                }
+                return null;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error streaming applicants", e);
+            }
+        });
+    }
+    
+    @Override
+    public Map<String, Applicant> findAllByIds(Collection<String> ids) {
+        Map<String, Applicant> applicants = new HashMap<>();
+        List<List<String>> chunks = InClause.chunks(ids);
+        if (chunks.isEmpty()) {
+            return applicants;
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
+            // Only the applicants not yet materialized in this unit of work are queried
+            IdentityMap identities = transactionManager.identityMap();
+            for (List<String> chunk : InClause.chunks(identities.getAll(Applicant.class, ids, applicants))) {
+                String sql = SELECT + "WHERE id IN " + InClause.placeholders(chunk.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    
+                    RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                    while (rs.next()) {
+                        Applicant applicant = resolve(row, identities);
+                        applicants.put(applicant.getId(), applicant);
+                    }
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error finding applicants by IDs", e);
+                }
+            }
+            return applicants;
+        });
+    }
+    
     @Override
     public void insert(Applicant applicant) {
-        String sql = "INSERT INTO applicants (id, first_name, last_name, email, phone, application_date, rank) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String sql = INSERT;
         
         transactionManager.executeInTransaction(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, applicant.getId());
-                pstmt.setString(2, applicant.getFirstName());
-                pstmt.setString(3, applicant.getLastName());
-                pstmt.setString(4, applicant.getEmail());
-                pstmt.setString(5, applicant.getPhone());
-                
-                // Store application date as timestamp in milliseconds
-                long timestamp = applicant.getApplicationDate().atStartOfDay()
-                                .atZone(java.time.ZoneId.systemDefault())
-                                .toInstant().toEpochMilli();
-                pstmt.setLong(6, timestamp);
-                
-                pstmt.setInt(7, applicant.getRank());
+                bindInsert(pstmt, applicant);
                 
                 int affectedRows = pstmt.executeUpdate();
                 if (affectedRows == 0) {
                     throw new DataAccessException("Creating applicant failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Applicant.class, applicant.getId(), applicant);
+                transactionManager.notifyChanged(Applicant.class, applicant.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error inserting applicant: " + applicant.getFullName(), e);
@@ -140,30 +244,19 @@ public class ApplicantDaoJdbc implements ApplicantDao {
     
     @Override
     public void update(Applicant applicant) {
-        String sql = "UPDATE applicants SET first_name = ?, last_name = ?, email = ?, " +
-                     "phone = ?, application_date = ?, rank = ? WHERE id = ?";
+        String sql = UPDATE;
         
         transactionManager.executeInTransaction(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, applicant.getFirstName());
-                pstmt.setString(2, applicant.getLastName());
-                pstmt.setString(3, applicant.getEmail());
-                pstmt.setString(4, applicant.getPhone());
-                
-                // Store application date as timestamp in milliseconds
-                long timestamp = applicant.getApplicationDate().atStartOfDay()
-                                .atZone(java.time.ZoneId.systemDefault())
-                                .toInstant().toEpochMilli();
-                pstmt.setLong(5, timestamp);
-                
-                pstmt.setInt(6, applicant.getRank());
-                pstmt.setString(7, applicant.getId());
+                bindUpdate(pstmt, applicant);
                 
                 int affectedRows = pstmt.executeUpdate();
                 if (affectedRows == 0) {
                     throw new DataAccessException("Updating applicant failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Applicant.class, applicant.getId(), applicant);
+                transactionManager.notifyChanged(Applicant.class, applicant.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error updating applicant: " + applicant.getFullName(), e);
@@ -171,6 +264,58 @@ public class ApplicantDaoJdbc implements ApplicantDao {
         });
     }
     
+    @Override
+    public BatchResult insertAll(List<Applicant> applicants) {
+        return new BatchWriter<Applicant>(transactionManager, INSERT, ApplicantDaoJdbc::bindInsert,
+                                          Applicant.class, Applicant::getId, false).writeAll(applicants);
+    }
+    
+    @Override
+    public BatchResult updateAll(List<Applicant> applicants) {
+        return new BatchWriter<Applicant>(transactionManager, UPDATE, ApplicantDaoJdbc::bindUpdate,
+                                          Applicant.class, Applicant::getId, true).writeAll(applicants);
+    }
+    
+    @Override
+    public BatchResult addAllToRecruitment(String recruitmentId, List<Applicant> applicants) {
+        BatchWriter.Binder<Applicant> binder = (pstmt, applicant) -> {
+            pstmt.setString(1, applicant.getId());
+            pstmt.setString(2, recruitmentId);
+            pstmt.setLong(3, toEpochMillis(applicant.getApplicationDate()));
+        };
+        return new BatchWriter<Applicant>(transactionManager, INSERT_APPLICATION, binder,
+                                          null, Applicant::getId, false).writeAll(applicants);
+    }
+    
+    private static void bindInsert(PreparedStatement pstmt, Applicant applicant) throws SQLException {
+        pstmt.setString(1, applicant.getId());
+        pstmt.setString(2, applicant.getFirstName());
+        pstmt.setString(3, applicant.getLastName());
+        pstmt.setString(4, applicant.getEmail());
+        pstmt.setString(5, applicant.getPhone());
+        pstmt.setLong(6, toEpochMillis(applicant.getApplicationDate()));
+        pstmt.setInt(7, applicant.getRank());
+    }
+    
+    private static void bindUpdate(PreparedStatement pstmt, Applicant applicant) throws SQLException {
+        pstmt.setString(1, applicant.getFirstName());
+        pstmt.setString(2, applicant.getLastName());
+        pstmt.setString(3, applicant.getEmail());
+        pstmt.setString(4, applicant.getPhone());
+        pstmt.setLong(5, toEpochMillis(applicant.getApplicationDate()));
+        pstmt.setInt(6, applicant.getRank());
+        pstmt.setString(7, applicant.getId());
+    }
+    
+    /**
+     * Application dates are stored as a timestamp in milliseconds, at the start of the day
+     * @param date The date
+     * @return The epoch milliseconds
+     */
+    private static long toEpochMillis(LocalDate date) {
+        return date.atStartOfDay().atZone(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
     @Override
     public void delete(String id) {
         String sql = "DELETE FROM applicants WHERE id = ?";
@@ -184,6 +329,8 @@ public class ApplicantDaoJdbc implements ApplicantDao {
                     throw new DataAccessException("Deleting applicant failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().remove(Applicant.class, id);
+                transactionManager.notifyChanged(Applicant.class, id);
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error deleting applicant with ID: " + id, e);
@@ -193,19 +340,19 @@ public class ApplicantDaoJdbc implements ApplicantDao {
     
     @Override
     public List<Applicant> findByRecruitment(String recruitmentId) {
-        String sql = "SELECT a.* FROM applicants a " +
-                     "JOIN applications app ON a.id = app.applicant_id " +
-                     "WHERE app.recruitment_id = ?";
+        String sql = SELECT_BY_RECRUITMENT + "WHERE app.recruitment_id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             List<Applicant> applicants = new ArrayList<>();
             
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, recruitmentId);
                 ResultSet rs = pstmt.executeQuery();
                 
+                RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                IdentityMap identities = transactionManager.identityMap();
                 while (rs.next()) {
-                    applicants.add(map(rs));
+                    applicants.add(resolve(row, identities));
                 }
                 return applicants;
             } catch (SQLException e) {
@@ -214,11 +361,46 @@ public class ApplicantDaoJdbc implements ApplicantDao {
         });
     }
     
+    @Override
+    public Page<Applicant> findByRecruitment(String recruitmentId, String afterId, int limit, SortOrder order) {
+        // Sorted on the applications column so the (recruitment_id, applicant_id) index serves the page
+        String sql = SELECT_BY_RECRUITMENT
+                   + Keyset.clauses("app.recruitment_id = ?", "app.applicant_id", afterId, limit, order);
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setString(1, recruitmentId);
+                Keyset.bind(pstmt, 2, afterId, limit);
+                return Keyset.page(readAll(pstmt, transactionManager.identityMap()), limit, Applicant::getId);
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding a page of applicants for recruitment: " + recruitmentId, e);
+            }
+        });
+    }
+    
+    /**
+     * Run a query and resolve every row through the identity map
+     * @param pstmt The query, with its parameters bound
+     * @param identities The identity map of the current transaction
+     * @return The applicants, in result order
+     * @throws SQLException If a database access error occurs
+     */
+    private static List<Applicant> readAll(PreparedStatement pstmt, IdentityMap identities) throws SQLException {
+        List<Applicant> applicants = new ArrayList<>();
+        try (ResultSet rs = pstmt.executeQuery()) {
+            RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+            while (rs.next()) {
+                applicants.add(resolve(row, identities));
+            }
+        }
+        return applicants;
+    }
+    
     @Override
     public int countAll() {
         String sql = "SELECT COUNT(*) FROM applicants";
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql);
                  ResultSet rs = pstmt.executeQuery()) {
                 
@@ -0,0 +1,171 @@
+package se.lu.ics.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import se.lu.ics.exception.DataAccessException;
+import se.lu.ics.model.BatchResult;
+
+/**
+ * Writes many rows with one statement, using JDBC batches in chunked transactions.
+ * Each chunk is one transaction and is first sent as a single batch inside a savepoint. If the batch fails,
+ * the savepoint is rolled back and the chunk is written again row by row, so the rows that fail
+ * are reported and all the others are still written.
+ * A busy or locked database is not the fault of any row, so that error is passed on for the transaction
+ * to be retried instead of being reported per row; rows are only reported once retrying has given up.
+ * @param <T> The entity written by each row
+ */
+final class BatchWriter<T> {
+    
+    /** Rows per transaction; large enough to amortise the commit, small enough to keep the write lock briefly */
+    static final int CHUNK_SIZE = 500;
+    
+    /**
+     * Binds the parameters of one row
+     * @param <T> The entity written by the row
+     */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement pstmt, T item) throws SQLException;
+    }
+    
+    private final TransactionManager transactionManager;
+    private final String sql;
+    private final Binder<? super T> binder;
+    private final Class<?> type;
+    private final Function<? super T, String> id;
+    private final boolean rowRequired;
+    
+    /**
+     * Constructor that takes the statement and how to bind it
+     * @param transactionManager The transaction manager to write with
+     * @param sql The INSERT or UPDATE statement
+     * @param binder Binds the statement's parameters for one entity
+     * @param type The entity class to evict from the identity map, or null if the entity is not kept there
+     * @param id The ID of an entity, used in failure reports
+     * @param rowRequired true if a row that changes nothing counts as a failure, as for an UPDATE of a missing ID
+     */
+    BatchWriter(TransactionManager transactionManager, String sql, Binder<? super T> binder,
+                Class<?> type, Function<? super T, String> id, boolean rowRequired) {
+        this.transactionManager = transactionManager;
+        this.sql = sql;
+        this.binder = binder;
+        this.type = type;
+        this.id = id;
+        this.rowRequired = rowRequired;
+    }
+    
+    /**
+     * Write all items
+     * @param items The entities to write
+     * @return Which rows failed and why; rows not listed were written and committed
+     */
+    BatchResult writeAll(List<? extends T> items) {
+        List<BatchResult.Failure> failures = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += CHUNK_SIZE) {
+            int offset = from;
+            List<? extends T> chunk = items.subList(from, Math.min(from + CHUNK_SIZE, items.size()));
+            try {
+                failures.addAll(transactionManager.executeInTransaction(conn -> {
+                    // Objects materialized or cached earlier no longer match the rows
+                    if (type != null) {
+                        IdentityMap identities = transactionManager.identityMap();
+                        for (T item : chunk) {
+                            identities.remove(type, id.apply(item));
+                            transactionManager.notifyChanged(type, id.apply(item));
+                        }
+                    }
+                    return writeChunk(chunk, offset);
+                }));
+            } catch (DataAccessException e) {
+                if (transactionManager.isInTransaction() && TransactionManager.isBusy(e)) {
+                    // The chunk was part of the caller's transaction, which is retried as a whole
+                    throw e;
+                }
+                // The chunk's transaction could not commit, so none of its rows were written
+                for (int i = 0; i < chunk.size(); i++) {
+                    failures.add(new BatchResult.Failure(offset + i, id.apply(chunk.get(i)), e));
+                }
+            }
+        }
+        return new BatchResult(items.size(), failures);
+    }
+    
+    /**
+     * Write one chunk inside the current transaction
+     * @param chunk The entities to write
+     * @param offset The position of the chunk in the input
+     * @return The rows of the chunk that failed
+     */
+    private List<BatchResult.Failure> writeChunk(List<? extends T> chunk, int offset) {
+        try {
+            return transactionManager.executeInTransaction(conn -> {
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (T item : chunk) {
+                        binder.bind(pstmt, item);
+                        pstmt.addBatch();
+                    }
+                    int[] counts = pstmt.executeBatch();
+                    
+                    List<BatchResult.Failure> failures = new ArrayList<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (rowRequired && counts[i] == 0) {
+                            failures.add(noRowsAffected(chunk.get(i), offset + i));
+                        }
+                    }
+                    return failures;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Batch write failed", e);
+                }
+            });
+        } catch (DataAccessException e) {
+            if (TransactionManager.isBusy(e)) {
+                throw e;
+            }
+            // Rolled back to the savepoint; find the failing rows one at a time
+            return writeRowByRow(chunk, offset);
+        }
+    }
+    
+    /**
+     * Write a chunk one row at a time; a failing statement is undone by SQLite on its own
+     * @param chunk The entities to write
+     * @param offset The position of the chunk in the input
+     * @return The rows of the chunk that failed
+     */
+    private List<BatchResult.Failure> writeRowByRow(List<? extends T> chunk, int offset) {
+        return transactionManager.executeInTransaction(conn -> {
+            List<BatchResult.Failure> failures = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    T item = chunk.get(i);
+                    try {
+                        binder.bind(pstmt, item);
+                        int count = pstmt.executeUpdate();
+                        if (rowRequired && count == 0) {
+                            failures.add(noRowsAffected(item, offset + i));
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        if (TransactionManager.isBusy(e)) {
+                            throw new DataAccessException("Batch write failed", e);
+                        }
+                        failures.add(new BatchResult.Failure(offset + i, id.apply(item), e));
+                    } finally {
+                        pstmt.clearParameters();
+                    }
+                }
+                return failures;
+            } catch (SQLException e) {
+                throw new DataAccessException("Batch write failed", e);
+            }
+        });
+    }
+    
+    private BatchResult.Failure noRowsAffected(T item, int index) {
+        String itemId = id.apply(item);
+        return new BatchResult.Failure(index, itemId,
+                                       new DataAccessException("No rows affected for ID: " + itemId));
+    }
+}
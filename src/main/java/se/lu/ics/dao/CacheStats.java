@@ -0,0 +1,94 @@
+package se.lu.ics.dao;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of how well an in-process cache of a caching DAO serves its lookups.
+ * A hit is a lookup answered from memory, a miss one that had to query the database,
+ * and an eviction an entry dropped to make room for another.
+ */
+public class CacheStats implements CacheStatsMXBean {
+    
+    private final String name;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    
+    /**
+     * Constructor that takes the name the cache is published under
+     * @param name The name of the cache, e.g. "applicants"
+     */
+    public CacheStats(String name) {
+        this.name = name;
+    }
+    
+    /**
+     * Record lookups answered from the cache
+     * @param count The number of lookups
+     */
+    void recordHits(int count) {
+        hits.add(count);
+    }
+    
+    /**
+     * Record lookups that had to query the database
+     * @param count The number of lookups
+     */
+    void recordMisses(int count) {
+        misses.add(count);
+    }
+    
+    /**
+     * Record an entry dropped to stay within the size limit
+     */
+    void recordEviction() {
+        evictions.increment();
+    }
+    
+    /**
+     * Record that cached entries were dropped because the data changed
+     */
+    void recordInvalidation() {
+        invalidations.increment();
+    }
+    
+    @Override
+    public String getName() {
+        return name;
+    }
+    
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+    
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+    
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+    
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+    
+    @Override
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CacheStats[%s: hits=%d, misses=%d, hitRatio=%.3f, evictions=%d, invalidations=%d]",
+                             name, getHitCount(), getMissCount(), getHitRatio(), getEvictionCount(),
+                             getInvalidationCount());
+    }
+}
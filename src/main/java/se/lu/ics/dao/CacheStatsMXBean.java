@@ -0,0 +1,38 @@
+package se.lu.ics.dao;
+
+/**
+ * JMX view of the statistics of one cache of a caching DAO.
+ * Registered as se.lu.ics:type=Caches,name=&lt;name&gt;.
+ */
+public interface CacheStatsMXBean {
+    
+    /**
+     * @return The name of the cache, e.g. "applicants"
+     */
+    String getName();
+    
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    long getHitCount();
+    
+    /**
+     * @return The number of lookups that had to query the database
+     */
+    long getMissCount();
+    
+    /**
+     * @return The share of lookups answered from the cache, between 0 and 1
+     */
+    double getHitRatio();
+    
+    /**
+     * @return The number of entries dropped to stay within the size limit
+     */
+    long getEvictionCount();
+    
+    /**
+     * @return The number of times cached entries were dropped because the data changed
+     */
+    long getInvalidationCount();
+}
@@ -0,0 +1,196 @@
+package se.lu.ics.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import se.lu.ics.model.Applicant;
+import se.lu.ics.model.BatchResult;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.SortOrder;
+
+/**
+ * ApplicantDao that keeps recently used applicants in a bounded LRU cache in front of another
+ * ApplicantDao, usually an ApplicantDaoJdbc. find and findAllByIds read through the cache; the list,
+ * page and streaming queries and all writes go straight to the wrapped DAO.
+ * An applicant is dropped from the cache whenever a change to it is reported to the transaction manager,
+ * which the JDBC DAOs do for every write.
+ */
+public class CachingApplicantDao implements ApplicantDao {
+    
+    /** Default maximum number of cached applicants */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+    
+    /** Default limit on the estimated memory taken by cached applicants, in bytes */
+    public static final long DEFAULT_MAX_BYTES = 1024 * 1024;
+    
+    private final ApplicantDao delegate;
+    private final LruEntityCache<Applicant> cache;
+    
+    /**
+     * Constructor that takes the DAO to cache and the transaction manager it runs in, caching at most
+     * {@value #DEFAULT_MAX_SIZE} applicants and about {@value #DEFAULT_MAX_BYTES} bytes
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     */
+    public CachingApplicantDao(ApplicantDao delegate, TransactionManager transactionManager) {
+        this(delegate, transactionManager, DEFAULT_MAX_SIZE, DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * Constructor that also takes the size limit of the cache
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     * @param maxSize The maximum number of cached applicants, 0 to cache nothing
+     * @throws IllegalArgumentException If the maximum size is negative
+     */
+    public CachingApplicantDao(ApplicantDao delegate, TransactionManager transactionManager, int maxSize) {
+        this(delegate, transactionManager, maxSize, DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * Constructor that also takes the size and memory limits of the cache
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     * @param maxSize The maximum number of cached applicants, 0 to cache nothing
+     * @param maxBytes The maximum estimated memory taken by cached applicants, in bytes
+     * @throws IllegalArgumentException If a limit is negative
+     */
+    public CachingApplicantDao(ApplicantDao delegate, TransactionManager transactionManager, int maxSize, long maxBytes) {
+        this.delegate = delegate;
+        this.cache = new LruEntityCache<>(transactionManager, Applicant.class, Applicant::getId,
+                                          (applicant, identities) -> copy(applicant), "applicants", maxSize,
+                                          CachingApplicantDao::estimateBytes, maxBytes);
+        transactionManager.addChangeListener((type, id) -> {
+            if (type == null) {
+                cache.invalidate(null);
+            } else if (type == Applicant.class) {
+                cache.invalidate(id);
+            }
+        });
+        transactionManager.getMetrics().registerCache(cache.getStats());
+    }
+    
+    /**
+     * Get the hit, miss and eviction counts of the cache
+     * @return The cache statistics
+     */
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+    
+    /**
+     * @return The number of applicants cached now
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+    
+    /**
+     * @return The estimated memory taken by the cached applicants now, in bytes
+     */
+    public long getCachedBytes() {
+        return cache.estimatedBytes();
+    }
+    
+    /**
+     * Drop every cached applicant, e.g. after the database was changed by another process
+     */
+    public void invalidateAll() {
+        cache.invalidate(null);
+    }
+    
+    @Override
+    public Optional<Applicant> find(String id) {
+        return cache.find(id, delegate::find);
+    }
+    
+    @Override
+    public Map<String, Applicant> findAllByIds(Collection<String> ids) {
+        return cache.findAllByIds(ids, delegate::findAllByIds);
+    }
+    
+    @Override
+    public List<Applicant> findAll() {
+        return delegate.findAll();
+    }
+    
+    @Override
+    public Page<Applicant> findAll(String afterId, int limit, SortOrder order) {
+        return delegate.findAll(afterId, limit, order);
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Applicant> action) {
+        delegate.forEach(action);
+    }
+    
+    @Override
+    public void forEach(int fetchSize, Consumer<? super Applicant> action) {
+        delegate.forEach(fetchSize, action);
+    }
+    
+    @Override
+    public void insert(Applicant applicant) {
+        delegate.insert(applicant);
+    }
+    
+    @Override
+    public void update(Applicant applicant) {
+        delegate.update(applicant);
+    }
+    
+    @Override
+    public BatchResult insertAll(List<Applicant> applicants) {
+        return delegate.insertAll(applicants);
+    }
+    
+    @Override
+    public BatchResult updateAll(List<Applicant> applicants) {
+        return delegate.updateAll(applicants);
+    }
+    
+    @Override
+    public BatchResult addAllToRecruitment(String recruitmentId, List<Applicant> applicants) {
+        return delegate.addAllToRecruitment(recruitmentId, applicants);
+    }
+    
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+    }
+    
+    @Override
+    public List<Applicant> findByRecruitment(String recruitmentId) {
+        return delegate.findByRecruitment(recruitmentId);
+    }
+    
+    @Override
+    public Page<Applicant> findByRecruitment(String recruitmentId, String afterId, int limit, SortOrder order) {
+        return delegate.findByRecruitment(recruitmentId, afterId, limit, order);
+    }
+    
+    @Override
+    public int countAll() {
+        return delegate.countAll();
+    }
+    
+    /**
+     * Estimate the memory taken by a cached applicant
+     * @param applicant The applicant
+     * @return The estimate in bytes
+     */
+    private static long estimateBytes(Applicant applicant) {
+        return LruEntityCache.OBJECT_BYTES + LruEntityCache.DATE_BYTES
+               + LruEntityCache.stringBytes(applicant.getId()) + LruEntityCache.stringBytes(applicant.getFirstName())
+               + LruEntityCache.stringBytes(applicant.getLastName()) + LruEntityCache.stringBytes(applicant.getEmail())
+               + LruEntityCache.stringBytes(applicant.getPhone());
+    }
+    
+    private static Applicant copy(Applicant applicant) {
+        return new Applicant(applicant.getId(), applicant.getFirstName(), applicant.getLastName(), applicant.getEmail(),
+                             applicant.getPhone(), applicant.getApplicationDate(), applicant.getRank());
+    }
+}
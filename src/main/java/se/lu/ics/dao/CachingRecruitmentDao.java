@@ -0,0 +1,199 @@
+package se.lu.ics.dao;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import se.lu.ics.model.LeaderboardEntry;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.Recruitment;
+import se.lu.ics.model.RecruitmentRow;
+import se.lu.ics.model.Role;
+import se.lu.ics.model.SortOrder;
+
+/**
+ * RecruitmentDao that keeps recently used recruitments in a bounded LRU cache in front of another
+ * RecruitmentDao, usually a RecruitmentDaoJdbc. find and findAllByIds read through the cache; the list,
+ * page, ranking and streaming queries and all writes go straight to the wrapped DAO.
+ * A recruitment is dropped from the cache whenever a change to it is reported to the transaction manager,
+ * and every recruitment is dropped when a role changes, since the cached copies include their role.
+ */
+public class CachingRecruitmentDao implements RecruitmentDao {
+    
+    /** Default maximum number of cached recruitments */
+    public static final int DEFAULT_MAX_SIZE = 500;
+    
+    /** Default limit on the estimated memory taken by cached recruitments, in bytes */
+    public static final long DEFAULT_MAX_BYTES = 512 * 1024;
+    
+    private final RecruitmentDao delegate;
+    private final LruEntityCache<Recruitment> cache;
+    
+    /**
+     * Constructor that takes the DAO to cache and the transaction manager it runs in, caching at most
+     * {@value #DEFAULT_MAX_SIZE} recruitments and about {@value #DEFAULT_MAX_BYTES} bytes
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     */
+    public CachingRecruitmentDao(RecruitmentDao delegate, TransactionManager transactionManager) {
+        this(delegate, transactionManager, DEFAULT_MAX_SIZE, DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * Constructor that also takes the size limit of the cache
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     * @param maxSize The maximum number of cached recruitments, 0 to cache nothing
+     * @throws IllegalArgumentException If the maximum size is negative
+     */
+    public CachingRecruitmentDao(RecruitmentDao delegate, TransactionManager transactionManager, int maxSize) {
+        this(delegate, transactionManager, maxSize, DEFAULT_MAX_BYTES);
+    }
+    
+    /**
+     * Constructor that also takes the size and memory limits of the cache
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     * @param maxSize The maximum number of cached recruitments, 0 to cache nothing
+     * @param maxBytes The maximum estimated memory taken by cached recruitments, in bytes
+     * @throws IllegalArgumentException If a limit is negative
+     */
+    public CachingRecruitmentDao(RecruitmentDao delegate, TransactionManager transactionManager, int maxSize, long maxBytes) {
+        this.delegate = delegate;
+        this.cache = new LruEntityCache<>(transactionManager, Recruitment.class, Recruitment::getId,
+                                          CachingRecruitmentDao::copy, "recruitments", maxSize,
+                                          CachingRecruitmentDao::estimateBytes, maxBytes);
+        transactionManager.addChangeListener((type, id) -> {
+            if (type == Recruitment.class) {
+                cache.invalidate(id);
+            } else if (type == null || type == Role.class) {
+                cache.invalidate(null);
+            }
+        });
+        transactionManager.getMetrics().registerCache(cache.getStats());
+    }
+    
+    /**
+     * Get the hit, miss and eviction counts of the cache
+     * @return The cache statistics
+     */
+    public CacheStats getStats() {
+        return cache.getStats();
+    }
+    
+    /**
+     * @return The number of recruitments cached now
+     */
+    public int getCachedCount() {
+        return cache.size();
+    }
+    
+    /**
+     * @return The estimated memory taken by the cached recruitments now, in bytes
+     */
+    public long getCachedBytes() {
+        return cache.estimatedBytes();
+    }
+    
+    /**
+     * Drop every cached recruitment, e.g. after the database was changed by another process
+     */
+    public void invalidateAll() {
+        cache.invalidate(null);
+    }
+    
+    @Override
+    public Optional<Recruitment> find(String id) {
+        return cache.find(id, delegate::find);
+    }
+    
+    @Override
+    public Map<String, Recruitment> findAllByIds(Collection<String> ids) {
+        return cache.findAllByIds(ids, delegate::findAllByIds);
+    }
+    
+    @Override
+    public List<Recruitment> findAll() {
+        return delegate.findAll();
+    }
+    
+    @Override
+    public Page<Recruitment> findAll(String afterId, int limit, SortOrder order) {
+        return delegate.findAll(afterId, limit, order);
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Recruitment> action) {
+        delegate.forEach(action);
+    }
+    
+    @Override
+    public void forEach(int fetchSize, Consumer<? super Recruitment> action) {
+        delegate.forEach(fetchSize, action);
+    }
+    
+    @Override
+    public List<Recruitment> findAllWithApplicantCounts() {
+        return delegate.findAllWithApplicantCounts();
+    }
+    
+    @Override
+    public List<RecruitmentRow> findAllRows() {
+        return delegate.findAllRows();
+    }
+    
+    @Override
+    public List<LeaderboardEntry<Recruitment>> findTopByApplicantCount(int limit) {
+        return delegate.findTopByApplicantCount(limit);
+    }
+    
+    @Override
+    public void insert(Recruitment recruitment) {
+        delegate.insert(recruitment);
+    }
+    
+    @Override
+    public void update(Recruitment recruitment) {
+        delegate.update(recruitment);
+    }
+    
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+    }
+    
+    @Override
+    public List<Recruitment> findByRole(String roleId) {
+        return delegate.findByRole(roleId);
+    }
+    
+    /**
+     * Estimate the memory taken by a cached recruitment, including its own copy of the role
+     * @param recruitment The recruitment
+     * @return The estimate in bytes
+     */
+    private static long estimateBytes(Recruitment recruitment) {
+        Role role = recruitment.getRole();
+        long roleBytes = role == null ? 0 : LruEntityCache.OBJECT_BYTES + LruEntityCache.stringBytes(role.getId())
+                + LruEntityCache.stringBytes(role.getTitle()) + LruEntityCache.stringBytes(role.getDescription())
+                + LruEntityCache.stringBytes(role.getDepartment());
+        return LruEntityCache.OBJECT_BYTES + 3 * LruEntityCache.DATE_BYTES
+               + LruEntityCache.stringBytes(recruitment.getId()) + roleBytes;
+    }
+    
+    /**
+     * Copy a recruitment together with its role
+     * @param recruitment The recruitment
+     * @param identities The identity map to take the role from, or null outside a transaction
+     * @return The copy
+     */
+    private static Recruitment copy(Recruitment recruitment, IdentityMap identities) {
+        Recruitment copy = new Recruitment(recruitment.getId(), CachingRoleDao.copyOf(recruitment.getRole(), identities),
+                                           recruitment.getPostingDate(), recruitment.getApplicationDeadline(),
+                                           recruitment.getOfferAcceptanceDate(), recruitment.getStatus());
+        copy.setApplicantCount(recruitment.getApplicantCount());
+        return copy;
+    }
+}
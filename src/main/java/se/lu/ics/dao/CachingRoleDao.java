@@ -0,0 +1,213 @@
+package se.lu.ics.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import se.lu.ics.model.LeaderboardEntry;
+import se.lu.ics.model.Role;
+
+/**
+ * RoleDao that keeps the roles in memory in front of another RoleDao, usually a RoleDaoJdbc.
+ * Roles rarely change, so find, findAll and findAllByIds are served from the cache after the first load.
+ * Writes go straight to the wrapped DAO. Every role change reported to the transaction manager drops
+ * the cached roles, once when it happens and again when its transaction ends, so a load that raced
+ * with an uncommitted write cannot keep stale data.
+ * The cache holds private copies and callers get their own copies, so changing a returned role
+ * does not change the cache; inside a transaction the copies go into its identity map as usual.
+ * Write transactions bypass the cache, since they may see their own uncommitted changes.
+ * The ranking query is never cached.
+ */
+public class CachingRoleDao implements RoleDao {
+    
+    private final RoleDao delegate;
+    private final TransactionManager transactionManager;
+    private final Map<String, Role> roles = new ConcurrentHashMap<>();
+    private volatile List<Role> allRoles;
+    private final AtomicLong generation = new AtomicLong();
+    private final CacheStats stats = new CacheStats("roles");
+    
+    /**
+     * Constructor that takes the DAO to cache and the transaction manager it runs in
+     * @param delegate The DAO that reads and writes the database
+     * @param transactionManager The transaction manager used by the delegate
+     */
+    public CachingRoleDao(RoleDao delegate, TransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.transactionManager = transactionManager;
+        transactionManager.addChangeListener((type, id) -> {
+            if (type == null || type == Role.class) {
+                invalidateAll();
+            }
+        });
+        transactionManager.getMetrics().registerCache(stats);
+    }
+    
+    /**
+     * Get the hit and miss counts of the cache
+     * @return The cache statistics
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * Drop every cached role, e.g. after the database was changed without going through this DAO
+     */
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        allRoles = null;
+        roles.clear();
+        stats.recordInvalidation();
+    }
+    
+    @Override
+    public Optional<Role> find(String id) {
+        if (transactionManager.isInWriteTransaction()) {
+            return delegate.find(id);
+        }
+        
+        Role cached = roles.get(id);
+        if (cached != null) {
+            stats.recordHits(1);
+            return Optional.of(share(cached));
+        }
+        
+        stats.recordMisses(1);
+        long loadedAt = generation.get();
+        Optional<Role> role = delegate.find(id);
+        role.ifPresent(r -> store(r, loadedAt));
+        return role;
+    }
+    
+    @Override
+    public List<Role> findAll() {
+        if (transactionManager.isInWriteTransaction()) {
+            return delegate.findAll();
+        }
+        
+        List<Role> cached = allRoles;
+        if (cached != null) {
+            stats.recordHits(1);
+            List<Role> result = new ArrayList<>(cached.size());
+            for (Role role : cached) {
+                result.add(share(role));
+            }
+            return result;
+        }
+        
+        stats.recordMisses(1);
+        long loadedAt = generation.get();
+        List<Role> loaded = delegate.findAll();
+        List<Role> copies = new ArrayList<>(loaded.size());
+        for (Role role : loaded) {
+            copies.add(copy(role));
+        }
+        synchronized (this) {
+            if (generation.get() == loadedAt) {
+                for (Role role : copies) {
+                    roles.put(role.getId(), role);
+                }
+                allRoles = List.copyOf(copies);
+            }
+        }
+        return loaded;
+    }
+    
+    @Override
+    public Map<String, Role> findAllByIds(Collection<String> ids) {
+        if (transactionManager.isInWriteTransaction()) {
+            return delegate.findAllByIds(ids);
+        }
+        
+        Map<String, Role> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            if (id == null || found.containsKey(id)) {
+                continue;
+            }
+            Role cached = roles.get(id);
+            if (cached != null) {
+                found.put(id, share(cached));
+            } else {
+                missing.add(id);
+            }
+        }
+        stats.recordHits(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        
+        stats.recordMisses(missing.size());
+        long loadedAt = generation.get();
+        for (Role role : delegate.findAllByIds(missing).values()) {
+            store(role, loadedAt);
+            found.put(role.getId(), role);
+        }
+        return found;
+    }
+    
+    @Override
+    public List<LeaderboardEntry<Role>> findTopByApplicantCount(int limit) {
+        return delegate.findTopByApplicantCount(limit);
+    }
+    
+    @Override
+    public void insert(Role role) {
+        delegate.insert(role);
+    }
+    
+    @Override
+    public void update(Role role) {
+        delegate.update(role);
+    }
+    
+    @Override
+    public void delete(String id) {
+        delegate.delete(id);
+    }
+    
+    /**
+     * Cache a copy of a loaded role, unless a write invalidated the cache while it was loading
+     * @param role The role read from the database
+     * @param loadedAt The generation of the cache when the load started
+     */
+    private synchronized void store(Role role, long loadedAt) {
+        if (generation.get() == loadedAt) {
+            roles.put(role.getId(), copy(role));
+        }
+    }
+    
+    /**
+     * Get the caller's object for a cached role: the one in the transaction's identity map,
+     * or a new copy that is added to it
+     * @param cached The cached role
+     * @return A role the caller may change
+     */
+    private Role share(Role cached) {
+        return copyOf(cached, transactionManager.identityMap());
+    }
+    
+    /**
+     * Copy a cached role for a caller, e.g. as part of a cached recruitment
+     * @param role The cached role
+     * @param identities The identity map of the current transaction, or null outside a transaction
+     * @return The role already in the identity map, or a new copy that is added to it
+     */
+    static Role copyOf(Role role, IdentityMap identities) {
+        if (identities == null) {
+            return copy(role);
+        }
+        Role known = identities.get(Role.class, role.getId());
+        return known != null ? known : identities.put(Role.class, role.getId(), copy(role));
+    }
+    
+    private static Role copy(Role role) {
+        return new Role(role.getId(), role.getTitle(), role.getDescription(), role.getDepartment());
+    }
+}
@@ -0,0 +1,206 @@
+package se.lu.ics.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs WAL checkpoints in the background instead of on the commit path.
+ * Automatic checkpoints are turned off on the writer connections, and a dedicated connection
+ * periodically copies the WAL back into the database with a PASSIVE checkpoint, which never waits
+ * for readers or writers. When the WAL has grown large and the writer is idle, the WAL file is
+ * also truncated, so its size stays bounded without ever stalling a user action.
+ */
+public class CheckpointScheduler implements AutoCloseable {
+    
+    /** Default time between two checkpoints */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1_000;
+    
+    /** Default WAL size, in pages, at which the WAL file is truncated when the writer is idle */
+    public static final int DEFAULT_TRUNCATE_THRESHOLD_PAGES = 4_000;
+    
+    private final DataSource dataSource;
+    private final TransactionManager transactionManager;
+    private final long intervalMillis;
+    private final int truncateThresholdPages;
+    private final ScheduledExecutorService executor;
+    private Connection connection;
+    
+    // Statistics
+    private final LongAdder checkpoints = new LongAdder();
+    private final LongAdder busyCheckpoints = new LongAdder();
+    private final LongAdder truncations = new LongAdder();
+    private final LongAdder pagesCheckpointed = new LongAdder();
+    private volatile int walPages;
+    
+    /**
+     * Constructor with default interval and threshold
+     * @param dataSource The datasource of the database to checkpoint
+     * @param transactionManager The transaction manager whose writers should not be stalled
+     */
+    public CheckpointScheduler(DataSource dataSource, TransactionManager transactionManager) {
+        this(dataSource, transactionManager, DEFAULT_INTERVAL_MILLIS, DEFAULT_TRUNCATE_THRESHOLD_PAGES);
+    }
+    
+    /**
+     * Constructor that takes the checkpoint interval and truncation threshold
+     * @param dataSource The datasource of the database to checkpoint
+     * @param transactionManager The transaction manager whose writers should not be stalled
+     * @param intervalMillis Time between two checkpoints
+     * @param truncateThresholdPages WAL size, in pages, at which the WAL file is truncated
+     */
+    public CheckpointScheduler(DataSource dataSource, TransactionManager transactionManager,
+                               long intervalMillis, int truncateThresholdPages) {
+        this.dataSource = dataSource;
+        this.transactionManager = transactionManager;
+        this.intervalMillis = intervalMillis;
+        this.truncateThresholdPages = truncateThresholdPages;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sqlite-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Turn off automatic checkpoints on the writer connections and start checkpointing in the background.
+     * Should be called before the first write, so that no writer connection keeps auto-checkpointing.
+     */
+    public void start() {
+        transactionManager.getConnectionPool().setInitStatements("PRAGMA wal_autocheckpoint = 0");
+        executor.scheduleWithFixedDelay(this::checkpoint, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Run one checkpoint; called on the scheduler thread
+     */
+    private void checkpoint() {
+        try {
+            int[] result = runCheckpoint("PASSIVE");
+            checkpoints.increment();
+            if (result[0] != 0) {
+                busyCheckpoints.increment();
+            }
+            if (result[2] > 0) {
+                pagesCheckpointed.add(result[2]);
+            }
+            walPages = Math.max(result[1], 0);
+            
+            // Only reset the WAL file once everything is copied back and no write is waiting
+            if (result[1] >= truncateThresholdPages && result[1] == result[2]
+                    && transactionManager.isWriterIdle()) {
+                int[] truncated = runCheckpoint("TRUNCATE");
+                if (truncated[0] == 0) {
+                    truncations.increment();
+                    walPages = 0;
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("WAL checkpoint failed: " + e.getMessage());
+            closeConnection();
+        }
+    }
+    
+    /**
+     * Execute a wal_checkpoint pragma on the checkpoint connection
+     * @param mode The checkpoint mode
+     * @return busy flag, pages in the WAL and pages checkpointed
+     * @throws SQLException If a database access error occurs
+     */
+    private int[] runCheckpoint(String mode) throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            try (Statement stmt = connection.createStatement()) {
+                // Give up immediately rather than wait for a lock held by a user action
+                stmt.execute("PRAGMA busy_timeout = 0");
+            }
+        }
+        
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+            if (rs.next()) {
+                return new int[] { rs.getInt(1), rs.getInt(2), rs.getInt(3) };
+            }
+            return new int[] { 0, 0, 0 };
+        }
+    }
+    
+    /**
+     * Close the checkpoint connection
+     */
+    private void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close connection: " + e.getMessage());
+            }
+            connection = null;
+        }
+    }
+    
+    /**
+     * Stop checkpointing and close the checkpoint connection
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS)) {
+                closeConnection();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // ========== Statistics ==========
+    
+    /**
+     * @return The number of checkpoints run
+     */
+    public long getCheckpointCount() {
+        return checkpoints.sum();
+    }
+    
+    /**
+     * @return The number of checkpoints that could not copy everything because of readers or writers
+     */
+    public long getBusyCheckpointCount() {
+        return busyCheckpoints.sum();
+    }
+    
+    /**
+     * @return The number of times the WAL file was truncated
+     */
+    public long getTruncationCount() {
+        return truncations.sum();
+    }
+    
+    /**
+     * @return The total number of pages copied from the WAL into the database
+     */
+    public long getPagesCheckpointed() {
+        return pagesCheckpointed.sum();
+    }
+    
+    /**
+     * @return The size of the WAL, in pages, after the latest checkpoint
+     */
+    public int getWalPages() {
+        return walPages;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("CheckpointScheduler[checkpoints=%d, busy=%d, truncations=%d, walPages=%d]",
+                             getCheckpointCount(), getBusyCheckpointCount(), getTruncationCount(), getWalPages());
+    }
+}
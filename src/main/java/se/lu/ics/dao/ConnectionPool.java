@@ -0,0 +1,446 @@
+package se.lu.ics.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import se.lu.ics.exception.DataAccessException;
+
+/**
+ * A bounded pool of database connections.
+ * Physical connections are opened lazily from the underlying datasource, kept open
+ * between transactions and handed out as wrappers whose close() returns them to the pool.
+ * Each physical connection keeps a {@link StatementCache}, so statements prepared with the same
+ * SQL are parsed once per connection instead of once per call.
+ */
+public class ConnectionPool implements AutoCloseable {
+    
+    /** Default number of prepared statements cached per connection */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    
+    private final DataSource dataSource;
+    private final int maxSize;
+    private final long maxWaitMillis;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final ConcurrentLinkedDeque<Connection> idleConnections = new ConcurrentLinkedDeque<>();
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private volatile String[] initStatements = new String[0];
+    private volatile boolean statementCounting;
+    private volatile boolean closed;
+    
+    // Statistics
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+    
+    /**
+     * Constructor that takes a datasource and the pool limits
+     * @param dataSource The datasource to open physical connections from
+     * @param maxSize The maximum number of connections handed out at the same time
+     * @param maxWaitMillis How long a caller may wait for a free connection
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, long maxWaitMillis) {
+        this(dataSource, maxSize, maxWaitMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+    
+    /**
+     * Constructor that takes a datasource, the pool limits and the statement cache size
+     * @param dataSource The datasource to open physical connections from
+     * @param maxSize The maximum number of connections handed out at the same time
+     * @param maxWaitMillis How long a caller may wait for a free connection
+     * @param statementCacheSize The maximum number of prepared statements cached per connection, 0 to disable
+     */
+    public ConnectionPool(DataSource dataSource, int maxSize, long maxWaitMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.dataSource = dataSource;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+    
+    /**
+     * Check out a connection, waiting for one to become free if the pool is exhausted
+     * @return A pooled connection; closing it returns it to the pool
+     * @throws DataAccessException If no connection could be obtained
+     */
+    public Connection acquire() {
+        if (closed) {
+            throw new DataAccessException("Connection pool is closed");
+        }
+        
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new DataAccessException("Timed out after " + maxWaitMillis +
+                                              " ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while waiting for a database connection", e);
+        }
+        
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        checkouts.increment();
+        
+        try {
+            return wrap(takeIdleOrOpen());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw new DataAccessException("Failed to get database connection", e);
+        }
+    }
+    
+    /**
+     * Take the most recently used idle connection, or open a new one
+     * @return A physical connection
+     * @throws SQLException If a new connection could not be opened
+     */
+    private Connection takeIdleOrOpen() throws SQLException {
+        Connection physical;
+        while ((physical = idleConnections.pollFirst()) != null) {
+            if (!physical.isClosed()) {
+                return physical;
+            }
+            // Also drops its statement cache
+            discard(physical);
+        }
+        
+        physical = dataSource.getConnection();
+        openConnections.incrementAndGet();
+        connectionsCreated.increment();
+        
+        try (Statement stmt = physical.createStatement()) {
+            for (String sql : initStatements) {
+                stmt.execute(sql);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+            throw e;
+        }
+        
+        if (statementCacheSize > 0) {
+            statementCaches.put(physical, new StatementCache(physical, statementCacheSize, statementCacheHits,
+                                                             statementCacheMisses, statementCacheEvictions));
+        }
+        return physical;
+    }
+    
+    /**
+     * Set statements to run on every physical connection when it is opened, e.g. connection-level pragmas.
+     * Idle connections are closed so that they are reopened with the new settings.
+     * @param sql The statements to run
+     */
+    public void setInitStatements(String... sql) {
+        this.initStatements = sql.clone();
+        Connection physical;
+        while ((physical = idleConnections.pollFirst()) != null) {
+            discard(physical);
+        }
+    }
+    
+    /**
+     * Count the statements executed and rows read on each checked-out connection, see {@link #counterOf(Connection)}
+     * @param statementCounting Whether to count
+     */
+    public void setStatementCounting(boolean statementCounting) {
+        this.statementCounting = statementCounting;
+    }
+    
+    /**
+     * Get the statement and row counts of a connection checked out from a pool
+     * @param connection A connection returned by {@link #acquire()}
+     * @return The counts since the connection was checked out, or null if counting is off
+     */
+    public static StatementCounter counterOf(Connection connection) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof PooledConnectionHandler handler) {
+            return handler.counter;
+        }
+        return null;
+    }
+    
+    /**
+     * Return a physical connection to the pool, resetting any transaction left open on it
+     * @param physical The physical connection
+     */
+    private void release(Connection physical) {
+        try {
+            if (closed || physical.isClosed()) {
+                discard(physical);
+                return;
+            }
+            StatementCache cache = statementCaches.get(physical);
+            if (cache != null) {
+                cache.resetAll();
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            idleConnections.offerFirst(physical);
+        } catch (SQLException e) {
+            System.err.println("Discarding broken pooled connection: " + e.getMessage());
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * Close a physical connection that is no longer usable
+     * @param physical The physical connection
+     */
+    private void discard(Connection physical) {
+        openConnections.decrementAndGet();
+        StatementCache cache = statementCaches.remove(physical);
+        if (cache != null) {
+            cache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("Failed to close connection: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Wrap a physical connection so that close() hands it back to the pool
+     * @param physical The physical connection
+     * @return The pooled connection
+     */
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new PooledConnectionHandler(physical, statementCaches.get(physical),
+                                        statementCounting ? new StatementCounter() : null));
+    }
+    
+    /**
+     * Close all idle connections and stop handing out new ones.
+     * Connections currently checked out are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Connection physical;
+        while ((physical = idleConnections.pollFirst()) != null) {
+            discard(physical);
+        }
+    }
+    
+    // ========== Statistics ==========
+    
+    /**
+     * @return The maximum number of connections handed out at the same time
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    /**
+     * @return The number of physical connections currently open
+     */
+    public int getOpenCount() {
+        return openConnections.get();
+    }
+    
+    /**
+     * @return The number of open connections waiting in the pool
+     */
+    public int getIdleCount() {
+        return idleConnections.size();
+    }
+    
+    /**
+     * @return The number of connections currently checked out
+     */
+    public int getActiveCount() {
+        return maxSize - permits.availablePermits();
+    }
+    
+    /**
+     * @return The number of callers currently waiting for a connection
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+    
+    /**
+     * @return The total number of successful checkouts
+     */
+    public long getCheckoutCount() {
+        return checkouts.sum();
+    }
+    
+    /**
+     * @return The number of checkouts that gave up waiting
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+    
+    /**
+     * @return The number of physical connections opened since the pool was created
+     */
+    public long getConnectionsCreated() {
+        return connectionsCreated.sum();
+    }
+    
+    /**
+     * @return The total time callers have spent waiting for a connection, in milliseconds
+     */
+    public double getTotalWaitMillis() {
+        return totalWaitNanos.sum() / 1_000_000.0;
+    }
+    
+    /**
+     * @return The average time a checkout waited for a connection, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = checkouts.sum();
+        return count == 0 ? 0.0 : getTotalWaitMillis() / count;
+    }
+    
+    /**
+     * @return The longest time a single checkout waited for a connection, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * @return The maximum number of prepared statements cached per connection
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+    
+    /**
+     * @return The number of prepared statements served from a statement cache
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits.sum();
+    }
+    
+    /**
+     * @return The number of prepared statements that had to be parsed
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses.sum();
+    }
+    
+    /**
+     * @return The number of cached statements closed to make room for others
+     */
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions.sum();
+    }
+    
+    /**
+     * @return The share of prepared statements served from a statement cache, between 0 and 1
+     */
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[size=%d, open=%d, active=%d, idle=%d, waiting=%d, " +
+                             "checkouts=%d, timeouts=%d, avgWait=%.3f ms, maxWait=%.3f ms, " +
+                             "stmtHits=%d, stmtMisses=%d, stmtEvictions=%d]",
+                             maxSize, getOpenCount(), getActiveCount(), getIdleCount(), getWaitingCount(),
+                             getCheckoutCount(), getTimeoutCount(), getAverageWaitMillis(), getMaxWaitMillis(),
+                             getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheEvictions());
+    }
+    
+    /**
+     * Invocation handler behind the connections handed out by the pool.
+     * Delegates to the physical connection until the caller closes it,
+     * except that prepareStatement(String) goes through the connection's statement cache.
+     */
+    private class PooledConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        private final StatementCache statementCache;
+        private final StatementCounter counter;
+        private boolean returned;
+        
+        PooledConnectionHandler(Connection physical, StatementCache statementCache, StatementCounter counter) {
+            this.physical = physical;
+            this.statementCache = statementCache;
+            this.counter = counter;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        release(physical);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled[" + physical + "]";
+                case "prepareStatement":
+                    if (!returned && statementCache != null && args.length == 1) {
+                        return statementCache.prepare((Connection) proxy, (String) args[0], counter);
+                    }
+                    // Other variants are not cached
+                default:
+                    if (returned) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    try {
+                        Object result = method.invoke(physical, args);
+                        if (counter != null && result instanceof Statement) {
+                            return wrapStatement((Statement) result, method.getReturnType());
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        private <T extends Statement> T wrapStatement(Statement statement, Class<?> type) {
+            return counter.wrap((T) statement, (Class<T>) type);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package se.lu.ics.dao;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of how often and how long transactions were held up by SQLite's database lock.
+ * The wait of a contended transaction is the time from its first attempt until it either
+ * succeeded on a retry or gave up.
+ */
+public class ContentionStats {
+    
+    private final LongAdder busyErrors = new LongAdder();
+    private final LongAdder contendedTransactions = new LongAdder();
+    private final LongAdder recoveredTransactions = new LongAdder();
+    private final LongAdder failedTransactions = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    
+    /**
+     * Record an attempt that failed because the database was busy or locked
+     * @param firstForTransaction Whether this is the first busy error of the transaction
+     */
+    void recordBusy(boolean firstForTransaction) {
+        busyErrors.increment();
+        if (firstForTransaction) {
+            contendedTransactions.increment();
+        }
+    }
+    
+    /**
+     * Record a contended transaction that succeeded on a retry
+     * @param waitedNanos Time from the first attempt until the successful one finished
+     */
+    void recordRecovered(long waitedNanos) {
+        recoveredTransactions.increment();
+        recordWait(waitedNanos);
+    }
+    
+    /**
+     * Record a contended transaction that gave up at its deadline
+     * @param waitedNanos Time from the first attempt until giving up
+     */
+    void recordFailed(long waitedNanos) {
+        failedTransactions.increment();
+        recordWait(waitedNanos);
+    }
+    
+    private void recordWait(long waitedNanos) {
+        totalWaitNanos.add(waitedNanos);
+        maxWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+    
+    /**
+     * @return The number of attempts that failed because the database was busy or locked
+     */
+    public long getBusyErrorCount() {
+        return busyErrors.sum();
+    }
+    
+    /**
+     * @return The number of transactions that hit a busy or locked database at least once
+     */
+    public long getContendedCount() {
+        return contendedTransactions.sum();
+    }
+    
+    /**
+     * @return The number of contended transactions that succeeded on a retry
+     */
+    public long getRecoveredCount() {
+        return recoveredTransactions.sum();
+    }
+    
+    /**
+     * @return The number of contended transactions that gave up at their deadline
+     */
+    public long getFailedCount() {
+        return failedTransactions.sum();
+    }
+    
+    /**
+     * @return The total time contended transactions spent waiting for the lock, in milliseconds
+     */
+    public double getTotalWaitMillis() {
+        return totalWaitNanos.sum() / 1_000_000.0;
+    }
+    
+    /**
+     * @return The average time a contended transaction waited for the lock, in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long count = recoveredTransactions.sum() + failedTransactions.sum();
+        return count == 0 ? 0.0 : getTotalWaitMillis() / count;
+    }
+    
+    /**
+     * @return The longest time a single transaction waited for the lock, in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("ContentionStats[busyErrors=%d, contended=%d, recovered=%d, failed=%d, " +
+                             "avgWait=%.3f ms, maxWait=%.3f ms]",
+                             getBusyErrorCount(), getContendedCount(), getRecoveredCount(), getFailedCount(),
+                             getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
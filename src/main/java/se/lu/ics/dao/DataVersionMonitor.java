@@ -0,0 +1,362 @@
+package se.lu.ics.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import se.lu.ics.exception.DataAccessException;
+
+/**
+ * Detects commits made to the database by other processes, e.g. another instance of the app,
+ * by polling SQLite's PRAGMA data_version in the background.
+ * The pragma is answered from memory without touching the database file. It is read on a dedicated
+ * connection, like the checkpoints, so a poll never waits for the writer connection or holds it up.
+ * A connection's value changes whenever any other connection commits, which includes the writers
+ * of this process. Their commits are already reported to the caches by the DAOs, so the monitor
+ * watches them as the commit observer of the transaction manager: around each local commit it reads
+ * the value on both the writer connection, which does not change for the writer's own commit, and its
+ * own connection, and takes the local commit into its baseline unless another process committed too.
+ * Writes that bypass the transaction manager, or a second writer connection in the pool, are
+ * counted as outside changes, which only invalidates more than needed.
+ * When a change is detected every cache listening to the transaction manager is invalidated and
+ * the listeners of this monitor get a snapshot of the monitor's state.
+ */
+public class DataVersionMonitor implements AutoCloseable {
+    
+    /** Default time between two polls */
+    public static final long DEFAULT_INTERVAL_MILLIS = 1_000;
+    
+    private final DataSource dataSource;
+    private final TransactionManager transactionManager;
+    private final long intervalMillis;
+    private final ScheduledExecutorService executor;
+    private final List<Consumer<? super Snapshot>> listeners = new CopyOnWriteArrayList<>();
+    private final TransactionManager.CommitObserver commitObserver;
+    private Connection connection;
+    
+    /** The last data version seen on the connection, which only means something on that same connection */
+    private long lastVersion;
+    private boolean hasVersion;
+    private boolean baselined;
+    /** Local commits between their two observer calls; their change is not in the baseline yet */
+    private int commitsInFlight;
+    /** A local commit saw that another process committed; reported by the next poll */
+    private boolean outsideChangeSeen;
+    
+    // Statistics
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder changes = new LongAdder();
+    private volatile Snapshot lastSnapshot = new Snapshot(0, 0, 0, null);
+    
+    /**
+     * State of the monitor when a change was detected
+     */
+    public static final class Snapshot {
+        private final long dataVersion;
+        private final long changeCount;
+        private final long pollCount;
+        private final LocalDateTime detectedAt;
+        
+        Snapshot(long dataVersion, long changeCount, long pollCount, LocalDateTime detectedAt) {
+            this.dataVersion = dataVersion;
+            this.changeCount = changeCount;
+            this.pollCount = pollCount;
+            this.detectedAt = detectedAt;
+        }
+        
+        /**
+         * @return The data version read on the monitor's connection
+         */
+        public long getDataVersion() {
+            return dataVersion;
+        }
+        
+        /**
+         * @return The number of changes detected so far, including this one
+         */
+        public long getChangeCount() {
+            return changeCount;
+        }
+        
+        /**
+         * @return The number of polls run so far
+         */
+        public long getPollCount() {
+            return pollCount;
+        }
+        
+        /**
+         * @return When the change was detected, or null if none has been detected yet
+         */
+        public LocalDateTime getDetectedAt() {
+            return detectedAt;
+        }
+        
+        @Override
+        public String toString() {
+            return "Snapshot[dataVersion=" + dataVersion + ", changes=" + changeCount + ", polls=" + pollCount +
+                   ", detectedAt=" + detectedAt + "]";
+        }
+    }
+    
+    /**
+     * Constructor with the default interval
+     * @param dataSource The datasource of the database to watch
+     * @param transactionManager The transaction manager whose commits are told apart and whose caches are invalidated
+     */
+    public DataVersionMonitor(DataSource dataSource, TransactionManager transactionManager) {
+        this(dataSource, transactionManager, DEFAULT_INTERVAL_MILLIS);
+    }
+    
+    /**
+     * Constructor that takes the poll interval
+     * @param dataSource The datasource of the database to watch
+     * @param transactionManager The transaction manager whose commits are told apart and whose caches are invalidated
+     * @param intervalMillis Time between two polls
+     */
+    public DataVersionMonitor(DataSource dataSource, TransactionManager transactionManager, long intervalMillis) {
+        this.dataSource = dataSource;
+        this.transactionManager = transactionManager;
+        this.intervalMillis = intervalMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "sqlite-data-version");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.commitObserver = new TransactionManager.CommitObserver() {
+            @Override
+            public long beforeCommit(Connection conn) {
+                return beforeLocalCommit(conn);
+            }
+            
+            @Override
+            public void afterCommit(Connection conn, long writerVersion) {
+                afterLocalCommit(conn, writerVersion);
+            }
+        };
+        transactionManager.setCommitObserver(commitObserver);
+    }
+    
+    /**
+     * Register a listener for outside changes; it runs on the monitor thread
+     * @param listener The listener, given a snapshot of the monitor when a change is detected
+     */
+    public void addListener(Consumer<? super Snapshot> listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Remove a listener for outside changes
+     * @param listener The listener
+     */
+    public void removeListener(Consumer<? super Snapshot> listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * Read the current data version as the baseline and start polling in the background
+     */
+    public void start() {
+        poll();
+        executor.scheduleWithFixedDelay(this::scheduledPoll, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Run one poll; called on the monitor thread
+     */
+    private void scheduledPoll() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            System.err.println("Data version poll failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Check for outside changes now, e.g. before trusting cached data after a long pause
+     * @return true if another process committed since the previous poll
+     * @throws DataAccessException If the data version could not be read
+     */
+    public boolean poll() {
+        Snapshot snapshot;
+        synchronized (this) {
+            if (commitsInFlight > 0) {
+                // A local commit is not in the baseline yet; look again next time
+                return false;
+            }
+            long version;
+            try {
+                version = readDataVersion(connection());
+            } catch (SQLException e) {
+                closeConnection();
+                throw new DataAccessException("Error reading the data version", e);
+            }
+            polls.increment();
+            
+            // A reopened connection has no earlier value to compare with,
+            // so after the baseline it may hide a change: count it as one to be safe
+            boolean changed = outsideChangeSeen || (hasVersion ? lastVersion != version : baselined);
+            lastVersion = version;
+            hasVersion = true;
+            baselined = true;
+            outsideChangeSeen = false;
+            if (!changed) {
+                return false;
+            }
+            
+            changes.increment();
+            snapshot = new Snapshot(version, changes.sum(), polls.sum(), LocalDateTime.now());
+            lastSnapshot = snapshot;
+        }
+        
+        transactionManager.notifyChanged(null, null);
+        for (Consumer<? super Snapshot> listener : listeners) {
+            try {
+                listener.accept(snapshot);
+            } catch (RuntimeException e) {
+                System.err.println("Data version listener failed: " + e.getMessage());
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Called just before a local write transaction commits.
+     * The writer is read first, so a commit landing between the two reads shows on the monitor's connection.
+     * @param writer The connection of the transaction
+     * @return The data version on the writer connection, or -1 if it could not be read
+     */
+    private synchronized long beforeLocalCommit(Connection writer) {
+        commitsInFlight++;
+        try {
+            long writerVersion = readDataVersion(writer);
+            long version = readDataVersion(connection());
+            if (baselined && (!hasVersion || version != lastVersion)) {
+                // Committed since the last poll or local commit, and not by this process
+                outsideChangeSeen = true;
+            }
+            return writerVersion;
+        } catch (SQLException e) {
+            System.err.println("Failed to read the data version before a commit: " + e.getMessage());
+            outsideChangeSeen |= baselined;
+            closeConnection();
+            return -1;
+        }
+    }
+    
+    /**
+     * Called right after a local write transaction committed, or failed to, and take it into the baseline.
+     * The writer's value does not change for its own commit, so if it changed another process committed
+     * since the first read, possibly before the monitor's connection was read here.
+     * @param writer The connection of the transaction
+     * @param writerVersion The data version on the writer connection before the commit, or -1 if unknown
+     */
+    private synchronized void afterLocalCommit(Connection writer, long writerVersion) {
+        try {
+            long version = readDataVersion(connection());
+            if (writerVersion < 0 || readDataVersion(writer) != writerVersion) {
+                outsideChangeSeen |= baselined;
+            }
+            lastVersion = version;
+            hasVersion = true;
+        } catch (SQLException e) {
+            System.err.println("Failed to read the data version after a commit: " + e.getMessage());
+            outsideChangeSeen |= baselined;
+            closeConnection();
+        } finally {
+            commitsInFlight--;
+        }
+    }
+    
+    /**
+     * Get the monitor's connection, opening it if needed
+     * @return The connection
+     * @throws SQLException If the connection could not be opened
+     */
+    private Connection connection() throws SQLException {
+        if (connection == null) {
+            connection = dataSource.getConnection();
+        }
+        return connection;
+    }
+    
+    private static long readDataVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA data_version")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+    
+    /**
+     * Close the monitor's connection; the next poll opens a new one
+     */
+    private synchronized void closeConnection() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close connection: " + e.getMessage());
+            }
+            connection = null;
+            hasVersion = false;
+        }
+    }
+    
+    /**
+     * Stop polling and watching local commits, and close the monitor's connection
+     */
+    @Override
+    public void close() {
+        if (transactionManager.getCommitObserver() == commitObserver) {
+            transactionManager.setCommitObserver(null);
+        }
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS)) {
+                closeConnection();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    // ========== Statistics ==========
+    
+    /**
+     * @return The number of polls that read the data version
+     */
+    public long getPollCount() {
+        return polls.sum();
+    }
+    
+    /**
+     * @return The number of changes detected
+     */
+    public long getChangeCount() {
+        return changes.sum();
+    }
+    
+    /**
+     * @return The snapshot of the latest outside change, with no detection time if there was none yet
+     */
+    public Snapshot getLastSnapshot() {
+        return lastSnapshot;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("DataVersionMonitor[polls=%d, changes=%d]", getPollCount(), getChangeCount());
+    }
+}
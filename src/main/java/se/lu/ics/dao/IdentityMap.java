@@ -0,0 +1,121 @@
+package se.lu.ics.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The entities materialized in one unit of work, one object per type and ID.
+ * Owned by a TransactionManager transaction: the DAOs return the object already in the map instead of
+ * building a second copy, and a find by ID that hits the map does not reach SQLite at all.
+ * Inside a write transaction nobody else can change the rows, and a read-only transaction sees one
+ * snapshot, so the objects stay current as long as writes go through the DAOs, which update the map.
+ * The map is dropped when the transaction ends.
+ */
+final class IdentityMap {
+    
+    private final Map<Class<?>, Map<String, Object>> entities = new HashMap<>();
+    private long hits;
+    
+    /**
+     * Look up an entity
+     * @param <T> The entity type
+     * @param type The entity class
+     * @param id The entity ID
+     * @return The entity, or null if it has not been materialized in this unit of work
+     */
+    <T> T get(Class<T> type, String id) {
+        Map<String, Object> byId = entities.get(type);
+        Object entity = byId != null ? byId.get(id) : null;
+        if (entity != null) {
+            hits++;
+        }
+        return type.cast(entity);
+    }
+    
+    /**
+     * Look up many entities, for batch finds that only need to query the rest
+     * @param <T> The entity type
+     * @param type The entity class
+     * @param ids The entity IDs; nulls are skipped
+     * @param found Receives the entities in the map, by ID
+     * @return The IDs that are not in the map
+     */
+    <T> List<String> getAll(Class<T> type, Collection<String> ids, Map<String, T> found) {
+        List<String> missing = new ArrayList<>();
+        for (String id : ids) {
+            if (id == null) {
+                continue;
+            }
+            T entity = get(type, id);
+            if (entity != null) {
+                found.put(id, entity);
+            } else {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+    
+    /**
+     * Make an entity the one object for its ID, replacing any earlier one
+     * @param <T> The entity type
+     * @param type The entity class
+     * @param id The entity ID
+     * @param entity The entity
+     * @return The entity, for chaining
+     */
+    <T> T put(Class<T> type, String id, T entity) {
+        if (id != null) {
+            entities.computeIfAbsent(type, t -> new HashMap<>()).put(id, entity);
+        }
+        return entity;
+    }
+    
+    /**
+     * Forget an entity, e.g. after its row was deleted
+     * @param type The entity class
+     * @param id The entity ID
+     */
+    void remove(Class<?> type, String id) {
+        Map<String, Object> byId = entities.get(type);
+        if (byId != null) {
+            byId.remove(id);
+        }
+    }
+    
+    /**
+     * Forget every entity of a type, e.g. after deleting rows whose IDs are not known
+     * @param type The entity class
+     */
+    void removeAll(Class<?> type) {
+        entities.remove(type);
+    }
+    
+    /**
+     * Forget every entity, e.g. after a rollback to a savepoint undid writes the map had seen
+     */
+    void clear() {
+        entities.clear();
+    }
+    
+    /**
+     * @return The number of lookups answered from the map
+     */
+    long getHits() {
+        return hits;
+    }
+    
+    /**
+     * @return The number of entities in the map
+     */
+    int size() {
+        int size = 0;
+        for (Map<String, Object> byId : entities.values()) {
+            size += byId.size();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,56 @@
+package se.lu.ics.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Helpers for looking up many IDs with "IN (?, ?, ...)" lists.
+ * An ID set is split into chunks that stay within SQLite's limit on bound parameters per statement,
+ * so every chunk is one round trip however many IDs there are.
+ */
+final class InClause {
+    
+    /**
+     * Parameters per statement. SQLite builds before 3.32 allow 999, later ones 32766;
+     * the lower limit works everywhere and already makes a chunk a single round trip for typical sets.
+     */
+    static final int MAX_PARAMETERS = 999;
+    
+    private InClause() {}
+    
+    /**
+     * Split IDs into chunks of at most {@link #MAX_PARAMETERS}, dropping nulls and duplicates
+     * @param ids The IDs to look up
+     * @return The chunks, in the order the IDs were given
+     */
+    static List<List<String>> chunks(Collection<String> ids) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+        if (distinct.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += MAX_PARAMETERS) {
+            chunks.add(distinct.subList(from, Math.min(from + MAX_PARAMETERS, distinct.size())));
+        }
+        return chunks;
+    }
+    
+    /**
+     * Build the parameter list for a chunk
+     * @param count The number of IDs in the chunk
+     * @return "(?, ?, ...)" with one placeholder per ID
+     */
+    static String placeholders(int count) {
+        StringBuilder sql = new StringBuilder(count * 3 + 1).append('(');
+        for (int i = 0; i < count; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+}
@@ -1,8 +1,15 @@
 package se.lu.ics.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import se.lu.ics.model.BatchResult;
 import se.lu.ics.model.Interview;
+import se.lu.ics.model.InterviewRow;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.SortOrder;
 
 /**
  * Data Access Object interface for Interview entities.
@@ -22,6 +29,44 @@ public interface InterviewDao {
      */
     List<Interview> findAll();
     
+    /**
+     * Find the displayed fields of all interviews, without loading notes or full recruitments and applicants
+     * @return List of rows for all interviews
+     */
+    List<InterviewRow> findAllRows();
+    
+    /**
+     * Find one page of interviews, sorted by ID, using keyset pagination
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Interview> findAll(String afterId, int limit, SortOrder order);
+    
+    /**
+     * Pass every interview to an action while reading them from an open cursor, without building a list.
+     * The action runs inside the read transaction; the connection is released when this method returns,
+     * also if the action throws.
+     * @param action The action to run for each interview
+     */
+    void forEach(Consumer<? super Interview> action);
+    
+    /**
+     * Pass every interview to an action while reading them from an open cursor, without building a list
+     * @param fetchSize The number of rows the driver should fetch at a time
+     * @param action The action to run for each interview
+     */
+    void forEach(int fetchSize, Consumer<? super Interview> action);
+    
+    /**
+     * Find many interviews at once, one query per chunk of IDs that fits SQLite's parameter limit
+     * @param ids The interview IDs; duplicates and nulls are ignored
+     * @return Map from ID to interview; IDs that do not exist are absent
+     */
+    Map<String, Interview> findAllByIds(Collection<String> ids);
+    
     /**
      * Insert a new interview
      * @param interview The interview to insert
@@ -34,6 +79,22 @@ public interface InterviewDao {
      */
     void update(Interview interview);
     
+    /**
+     * Insert many interviews with JDBC batches, one transaction per chunk of rows.
+     * A row that fails does not stop the others; it is listed in the result.
+     * @param interviews The interviews to insert
+     * @return Which rows failed and why
+     */
+    BatchResult insertAll(List<Interview> interviews);
+    
+    /**
+     * Update many interviews with JDBC batches, one transaction per chunk of rows.
+     * A row that fails does not stop the others; it is listed in the result. An interview that does not exist counts as failed.
+     * @param interviews The interviews to update
+     * @return Which rows failed and why
+     */
+    BatchResult updateAll(List<Interview> interviews);
+    
     /**
      * Delete an interview
      * @param id The ID of the interview to delete
@@ -47,10 +108,32 @@ public interface InterviewDao {
      */
     List<Interview> findByRecruitment(String recruitmentId);
     
+    /**
+     * Find one page of the interviews for a recruitment, sorted by ID, using keyset pagination
+     * @param recruitmentId The recruitment ID
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Interview> findByRecruitment(String recruitmentId, String afterId, int limit, SortOrder order);
+    
     /**
      * Find all interviews for an applicant
      * @param applicantId The applicant ID
      * @return List of interviews for the applicant
      */
     List<Interview> findByApplicant(String applicantId);
+    
+    /**
+     * Find one page of the interviews for an applicant, sorted by ID, using keyset pagination
+     * @param applicantId The applicant ID
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Interview> findByApplicant(String applicantId, String afterId, int limit, SortOrder order);
 } 
\ No newline at end of file
@@ -6,124 +6,215 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import se.lu.ics.exception.DataAccessException;
 import se.lu.ics.model.Applicant;
+import se.lu.ics.model.BatchResult;
 import se.lu.ics.model.Interview;
+import se.lu.ics.model.InterviewRow;
 import se.lu.ics.model.InterviewStatus;
+import se.lu.ics.model.Page;
 import se.lu.ics.model.Recruitment;
 import se.lu.ics.model.Role;
 import se.lu.ics.model.RecruitmentStatus;
+import se.lu.ics.model.SortOrder;
 
 /**
  * JDBC implementation of the InterviewDao interface.
  */
 public class InterviewDaoJdbc implements InterviewDao {
     
+    /** Interview columns, in the order of the index constants below */
+    private static final String[] COLUMNS =
+        {"id", "recruitment_id", "applicant_id", "date_time", "location", "interviewer", "status", "notes"};
+    private static final int ID = 0;
+    private static final int RECRUITMENT_ID = 1;
+    private static final int APPLICANT_ID = 2;
+    private static final int DATE_TIME = 3;
+    private static final int LOCATION = 4;
+    private static final int INTERVIEWER = 5;
+    private static final int STATUS = 6;
+    private static final int NOTES = 7;
+    private static final InterviewStatus[] STATUSES = InterviewStatus.values();
+    
+    /** Rows fetched at a time when streaming */
+    private static final int DEFAULT_FETCH_SIZE = 256;
+    
+    /**
+     * Loads interviews together with their recruitment, role and applicant in one statement.
+     * LEFT JOINs keep interviews whose recruitment or applicant is missing; they get placeholders.
+     */
+    private static final String SELECT_GRAPH = """
+        SELECT i.id, i.recruitment_id, i.applicant_id, i.date_time, i.location, i.interviewer, i.status, i.notes,
+               r.id AS r_id, r.role_id AS r_role_id, r.application_deadline AS r_application_deadline,
+               r.posting_date AS r_posting_date, r.offer_acceptance_date AS r_offer_acceptance_date,
+               r.status AS r_status,
+               ro.id AS ro_id, ro.title AS ro_title, ro.description AS ro_description, ro.department AS ro_department,
+               a.id AS a_id, a.first_name AS a_first_name, a.last_name AS a_last_name, a.email AS a_email,
+               a.phone AS a_phone, a.application_date AS a_application_date, a.rank AS a_rank
+        FROM interviews i
+        LEFT JOIN recruitments r ON r.id = i.recruitment_id
+        LEFT JOIN roles ro ON ro.id = r.role_id
+        LEFT JOIN applicants a ON a.id = i.applicant_id
+        """;
+    
+    private static final String INSERT =
+        "INSERT INTO interviews (id, recruitment_id, applicant_id, date_time, location, interviewer, status, notes) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String UPDATE =
+        "UPDATE interviews SET recruitment_id = ?, applicant_id = ?, date_time = ?, " +
+        "location = ?, interviewer = ?, status = ?, notes = ? WHERE id = ?";
+    
+    /** Only the columns of the interview table, read by position in {@link #findAllRows()} */
+    private static final String SELECT_ROW = """
+        SELECT i.id, i.date_time, a.first_name, a.last_name, ro.title, i.interviewer, i.status
+        FROM interviews i
+        LEFT JOIN recruitments r ON r.id = i.recruitment_id
+        LEFT JOIN roles ro ON ro.id = r.role_id
+        LEFT JOIN applicants a ON a.id = i.applicant_id
+        """;
+    
     private final TransactionManager transactionManager;
-    private final ApplicantDao applicantDao;
-    private final RecruitmentDao recruitmentDao;
     
     /**
-     * Constructor that takes a transaction manager and related DAOs
+     * Constructor that takes a transaction manager
      * @param transactionManager The transaction manager to use
-     * @param applicantDao The DAO for applicants
-     * @param recruitmentDao The DAO for recruitments
      */
-    public InterviewDaoJdbc(TransactionManager transactionManager, 
-                           ApplicantDao applicantDao, 
-                           RecruitmentDao recruitmentDao) {
+    public InterviewDaoJdbc(TransactionManager transactionManager) {
         this.transactionManager = transactionManager;
-        this.applicantDao = applicantDao;
-        this.recruitmentDao = recruitmentDao;
     }
     
     /**
-     * Maps a ResultSet row to an Interview object
-     * @param rs The ResultSet containing interview data
-     * @return A new Interview object
-     * @throws SQLException If a database access error occurs
+     * Builds interviews from rows of {@link #SELECT_GRAPH}.
+     * Recruitments, roles and applicants are looked up in the transaction's identity map and built
+     * only the first time, so every query in one unit of work yields a single object per entity.
+     * The column indexes are resolved once for each result set the graph reads.
      */
-    private Interview map(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String recruitmentId = rs.getString("recruitment_id");
-        String applicantId = rs.getString("applicant_id");
+    private static final class InterviewGraph {
+        private final IdentityMap identities;
+        private final boolean remember;
+        private RowDecoder row;
+        private RowDecoder recruitmentRow;
+        private RowDecoder roleRow;
+        private RowDecoder applicantRow;
         
-        // Handle date parsing issues
-        LocalDateTime dateTime;
-        try {
-            dateTime = rs.getTimestamp("date_time").toLocalDateTime();
-        } catch (SQLException | NullPointerException e) {
-            // Fallback to current time
-            System.err.println("Error parsing date time for interview " + id + ": " + e.getMessage());
-            dateTime = LocalDateTime.now();
+        /**
+         * Constructor for a graph that shares recruitments, roles and applicants
+         * @param identities The identity map of the current transaction
+         */
+        InterviewGraph(IdentityMap identities) {
+            this(identities, true);
         }
         
-        String location = rs.getString("location");
-        String interviewer = rs.getString("interviewer");
-        String statusStr = rs.getString("status");
-        InterviewStatus status;
-        try {
-            status = InterviewStatus.valueOf(statusStr.toUpperCase());
-        } catch (IllegalArgumentException e) {
-            // Handle case sensitivity and format issues
-            if ("Cancelled".equals(statusStr) || "cancelled".equals(statusStr.toLowerCase())) {
-                status = InterviewStatus.CANCELLED;
-            } else if ("Scheduled".equals(statusStr) || "scheduled".equals(statusStr.toLowerCase())) {
-                status = InterviewStatus.SCHEDULED;
-            } else if ("Rescheduled".equals(statusStr) || "rescheduled".equals(statusStr.toLowerCase())) {
-                status = InterviewStatus.RESCHEDULED;
-            } else if ("Completed".equals(statusStr) || "completed".equals(statusStr.toLowerCase())) {
-                status = InterviewStatus.COMPLETED;
-            } else {
-                throw new DataAccessException("Unknown interview status: " + statusStr, e);
-            }
+        /**
+         * Constructor that decides whether interviews and applicants are added to the identity map
+         * @param identities The identity map of the current transaction
+         * @param remember false when streaming, where remembering every interview and applicant would
+         *                 grow with the table; those already in the map are still reused,
+         *                 and recruitments and roles are always shared
+         */
+        InterviewGraph(IdentityMap identities, boolean remember) {
+            this.identities = identities;
+            this.remember = remember;
         }
-        String notes = rs.getString("notes");
         
-        // Get the related objects
-        Optional<Recruitment> recruitmentOpt = recruitmentDao.find(recruitmentId);
-        Optional<Applicant> applicantOpt = applicantDao.find(applicantId);
-        
-        // Handle missing recruitment with a fallback
-        Recruitment recruitment;
-        if (recruitmentOpt.isEmpty()) {
-            // Create a dummy Role and Recruitment for data integrity
-            Role dummyRole = new Role("Unknown", "Unknown Department");
-            dummyRole.setId("0");
-            recruitment = new Recruitment(recruitmentId, dummyRole, LocalDateTime.now().toLocalDate(), 
-                          LocalDateTime.now().plusMonths(1).toLocalDate(), null, RecruitmentStatus.OPEN);
-        } else {
-            recruitment = recruitmentOpt.get();
+        /**
+         * Maps a ResultSet row to an Interview object
+         * @param rs The ResultSet containing interview data
+         * @return The Interview object for the row's ID in this unit of work
+         * @throws SQLException If a database access error occurs
+         */
+        Interview map(ResultSet rs) throws SQLException {
+            if (row == null || row.getResultSet() != rs) {
+                row = new RowDecoder(rs, "", COLUMNS);
+                recruitmentRow = new RowDecoder(rs, "r_", RecruitmentDaoJdbc.COLUMNS);
+                roleRow = new RowDecoder(rs, "ro_", RoleDaoJdbc.COLUMNS);
+                applicantRow = new RowDecoder(rs, "a_", ApplicantDaoJdbc.COLUMNS);
+            }
+            
+            String id = row.getString(ID);
+            Interview known = identities.get(Interview.class, id);
+            if (known != null) {
+                return known;
+            }
+            String recruitmentId = row.getString(RECRUITMENT_ID);
+            String applicantId = row.getString(APPLICANT_ID);
+            
+            LocalDateTime dateTime = row.getDateTime(DATE_TIME);
+            if (dateTime == null) {
+                // Fallback to current time
+                System.err.println("Error parsing date time for interview " + id + ": " + row.getString(DATE_TIME));
+                dateTime = LocalDateTime.now();
+            }
+            
+            InterviewStatus status = row.getEnum(STATUS, STATUSES);
+            if (status == null) {
+                throw new DataAccessException("Unknown interview status: " + row.getString(STATUS));
+            }
+            
+            Recruitment recruitment = identities.get(Recruitment.class, recruitmentId);
+            if (recruitment == null) {
+                recruitment = mapRecruitment(recruitmentId);
+            }
+            
+            Applicant applicant = identities.get(Applicant.class, applicantId);
+            if (applicant == null) {
+                applicant = mapApplicant(applicantId);
+            }
+            
+            Interview interview = new Interview(id, recruitment, applicant, dateTime, 
+                               row.getString(LOCATION), row.getString(INTERVIEWER), status, row.getString(NOTES));
+            return remember ? identities.put(Interview.class, id, interview) : interview;
         }
         
-        // Handle missing applicant with a fallback
-        Applicant applicant;
-        if (applicantOpt.isEmpty()) {
-            // Create a dummy Applicant for data integrity
-            applicant = new Applicant("Unknown", "Unknown", "unknown@example.com", "N/A");
-            applicant.setId(applicantId);
-        } else {
-            applicant = applicantOpt.get();
+        private Recruitment mapRecruitment(String recruitmentId) throws SQLException {
+            if (recruitmentRow.getString(RecruitmentDaoJdbc.ID) == null) {
+                // Create a dummy Role and Recruitment for data integrity
+                Role dummyRole = new Role("Unknown", "Unknown Department");
+                dummyRole.setId("0");
+                return new Recruitment(recruitmentId, dummyRole, LocalDateTime.now().toLocalDate(), 
+                              LocalDateTime.now().plusMonths(1).toLocalDate(), null, RecruitmentStatus.OPEN);
+            }
+            
+            Role role = RecruitmentDaoJdbc.roleOf(recruitmentRow, roleRow, identities);
+            return identities.put(Recruitment.class, recruitmentId, RecruitmentDaoJdbc.map(recruitmentRow, role));
         }
         
-        return new Interview(id, recruitment, applicant, dateTime, 
-                           location, interviewer, status, notes);
+        private Applicant mapApplicant(String applicantId) throws SQLException {
+            if (applicantRow.getString(ApplicantDaoJdbc.ID) == null) {
+                // Create a dummy Applicant for data integrity
+                Applicant applicant = new Applicant("Unknown", "Unknown", "unknown@example.com", "N/A");
+                applicant.setId(applicantId);
+                return applicant;
+            }
+            return remember ? ApplicantDaoJdbc.resolve(applicantRow, identities) : ApplicantDaoJdbc.map(applicantRow);
+        }
     }
     
     @Override
     public Optional<Interview> find(String id) {
-        String sql = "SELECT * FROM interviews WHERE id = ?";
+        String sql = SELECT_GRAPH + "WHERE i.id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        IdentityMap identities = transactionManager.identityMap();
+        Interview known = identities != null ? identities.get(Interview.class, id) : null;
+        if (known != null) {
+            return Optional.of(known);
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, id);
                 ResultSet rs = pstmt.executeQuery();
                 
                 if (rs.next()) {
-                    return Optional.of(map(rs));
+                    return Optional.of(new InterviewGraph(transactionManager.identityMap()).map(rs));
                 }
                 return Optional.empty();
             } catch (SQLException e) {
@@ -135,14 +226,15 @@ public class InterviewDaoJdbc implements InterviewDao {
     @Override
     public List<Interview> findAll() {
         List<Interview> interviews = new ArrayList<>();
-        String sql = "SELECT * FROM interviews";
+        String sql = SELECT_GRAPH;
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql);
                  ResultSet rs = pstmt.executeQuery()) {
                 
+                InterviewGraph graph = new InterviewGraph(transactionManager.identityMap());
                 while (rs.next()) {
-                    interviews.add(map(rs));
+                    interviews.add(graph.map(rs));
                 }
                 return interviews;
             } catch (SQLException e) {
@@ -151,18 +243,118 @@ public class InterviewDaoJdbc implements InterviewDao {
         });
     }
     
+    @Override
+    public List<InterviewRow> findAllRows() {
+        List<InterviewRow> rows = new ArrayList<>();
+        String sql = SELECT_ROW;
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    String id = rs.getString(1);
+                    LocalDateTime dateTime = RowDecoder.parseDateTime(rs.getString(2));
+                    if (dateTime == null) {
+                        // Fallback to current time, as when the full interview is mapped
+                        System.err.println("Error parsing date time for interview " + id + ": " + rs.getString(2));
+                        dateTime = LocalDateTime.now();
+                    }
+                    
+                    // Missing applicants and recruitments show as the placeholders the full mapping uses
+                    String firstName = rs.getString(3);
+                    String applicantName = firstName != null ? firstName + " " + rs.getString(4) : "Unknown Unknown";
+                    String roleTitle = rs.getString(5);
+                    if (roleTitle == null) {
+                        roleTitle = "Unknown";
+                    }
+                    
+                    InterviewStatus status = RowDecoder.parseEnum(rs.getString(7), STATUSES);
+                    if (status == null) {
+                        throw new DataAccessException("Unknown interview status: " + rs.getString(7));
+                    }
+                    rows.add(new InterviewRow(id, dateTime, applicantName, roleTitle, rs.getString(6), status));
+                }
+                return rows;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding interview rows", e);
+            }
+        });
+    }
+    
+    @Override
+    public Page<Interview> findAll(String afterId, int limit, SortOrder order) {
+        return findPage(null, null, afterId, limit, order);
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Interview> action) {
+        forEach(DEFAULT_FETCH_SIZE, action);
+    }
+    
+    @Override
+    public void forEach(int fetchSize, Consumer<? super Interview> action) {
+        String sql = SELECT_GRAPH;
+        
+        transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setFetchSize(fetchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    InterviewGraph graph = new InterviewGraph(transactionManager.identityMap(), false);
+                    while (rs.next()) {
+                        action.accept(graph.map(rs));
+                    }
+                }
+                return null;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error streaming interviews", e);
+            }
+        });
+    }
+    
+    @Override
+    public Map<String, Interview> findAllByIds(Collection<String> ids) {
+        Map<String, Interview> interviews = new HashMap<>();
+        List<List<String>> chunks = InClause.chunks(ids);
+        if (chunks.isEmpty()) {
+            return interviews;
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
+            InterviewGraph graph = new InterviewGraph(transactionManager.identityMap());
+            for (List<String> chunk : chunks) {
+                String sql = SELECT_GRAPH + "WHERE i.id IN " + InClause.placeholders(chunk.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    
+                    while (rs.next()) {
+                        Interview interview = graph.map(rs);
+                        interviews.put(interview.getId(), interview);
+                    }
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error finding interviews by IDs", e);
+                }
+            }
+            return interviews;
+        });
+    }
+    
     @Override
     public List<Interview> findByRecruitment(String recruitmentId) {
         List<Interview> interviews = new ArrayList<>();
-        String sql = "SELECT * FROM interviews WHERE recruitment_id = ?";
+        String sql = SELECT_GRAPH + "WHERE i.recruitment_id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, recruitmentId);
                 ResultSet rs = pstmt.executeQuery();
                 
+                InterviewGraph graph = new InterviewGraph(transactionManager.identityMap());
                 while (rs.next()) {
-                    interviews.add(map(rs));
+                    interviews.add(graph.map(rs));
                 }
                 return interviews;
             } catch (SQLException e) {
@@ -174,15 +366,16 @@ public class InterviewDaoJdbc implements InterviewDao {
     @Override
     public List<Interview> findByApplicant(String applicantId) {
         List<Interview> interviews = new ArrayList<>();
-        String sql = "SELECT * FROM interviews WHERE applicant_id = ?";
+        String sql = SELECT_GRAPH + "WHERE i.applicant_id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, applicantId);
                 ResultSet rs = pstmt.executeQuery();
                 
+                InterviewGraph graph = new InterviewGraph(transactionManager.identityMap());
                 while (rs.next()) {
-                    interviews.add(map(rs));
+                    interviews.add(graph.map(rs));
                 }
                 return interviews;
             } catch (SQLException e) {
@@ -191,27 +384,64 @@ public class InterviewDaoJdbc implements InterviewDao {
         });
     }
     
+    @Override
+    public Page<Interview> findByRecruitment(String recruitmentId, String afterId, int limit, SortOrder order) {
+        return findPage("i.recruitment_id = ?", recruitmentId, afterId, limit, order);
+    }
+    
+    @Override
+    public Page<Interview> findByApplicant(String applicantId, String afterId, int limit, SortOrder order) {
+        return findPage("i.applicant_id = ?", applicantId, afterId, limit, order);
+    }
+    
+    /**
+     * Find one page of interviews, sorted by ID
+     * @param filter A condition with one parameter, or null for all interviews
+     * @param filterValue The value of the condition's parameter
+     * @param afterId The ID to start after, or null for the first page
+     * @param limit The page size
+     * @param order The sort order
+     * @return The page
+     */
+    private Page<Interview> findPage(String filter, String filterValue, String afterId, int limit, SortOrder order) {
+        List<Interview> interviews = new ArrayList<>();
+        String sql = SELECT_GRAPH + Keyset.clauses(filter, "i.id", afterId, limit, order);
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int index = 1;
+                if (filter != null) {
+                    pstmt.setString(index++, filterValue);
+                }
+                Keyset.bind(pstmt, index, afterId, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    InterviewGraph graph = new InterviewGraph(transactionManager.identityMap());
+                    while (rs.next()) {
+                        interviews.add(graph.map(rs));
+                    }
+                }
+                return Keyset.page(interviews, limit, Interview::getId);
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding a page of interviews after: " + afterId, e);
+            }
+        });
+    }
+    
     @Override
     public void insert(Interview interview) {
-        String sql = "INSERT INTO interviews (id, recruitment_id, applicant_id, date_time, location, interviewer, status, notes) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        String sql = INSERT;
         
         transactionManager.executeInTransaction(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, interview.getId());
-                pstmt.setString(2, interview.getRecruitment().getId());
-                pstmt.setString(3, interview.getApplicant().getId());
-                pstmt.setTimestamp(4, java.sql.Timestamp.valueOf(interview.getDateTime()));
-                pstmt.setString(5, interview.getLocation());
-                pstmt.setString(6, interview.getInterviewer());
-                pstmt.setString(7, interview.getStatus().name());
-                pstmt.setString(8, interview.getNotes());
+                bindInsert(pstmt, interview);
                 
                 int affectedRows = pstmt.executeUpdate();
                 if (affectedRows == 0) {
                     throw new DataAccessException("Creating interview failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Interview.class, interview.getId(), interview);
+                transactionManager.notifyChanged(Interview.class, interview.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error inserting interview", e);
@@ -221,25 +451,19 @@ public class InterviewDaoJdbc implements InterviewDao {
     
     @Override
     public void update(Interview interview) {
-        String sql = "UPDATE interviews SET recruitment_id = ?, applicant_id = ?, date_time = ?, " +
-                     "location = ?, interviewer = ?, status = ?, notes = ? WHERE id = ?";
+        String sql = UPDATE;
         
         transactionManager.executeInTransaction(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                pstmt.setString(1, interview.getRecruitment().getId());
-                pstmt.setString(2, interview.getApplicant().getId());
-                pstmt.setTimestamp(3, java.sql.Timestamp.valueOf(interview.getDateTime()));
-                pstmt.setString(4, interview.getLocation());
-                pstmt.setString(5, interview.getInterviewer());
-                pstmt.setString(6, interview.getStatus().name());
-                pstmt.setString(7, interview.getNotes());
-                pstmt.setString(8, interview.getId());
+                bindUpdate(pstmt, interview);
                 
                 int affectedRows = pstmt.executeUpdate();
                 if (affectedRows == 0) {
                     throw new DataAccessException("Updating interview failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Interview.class, interview.getId(), interview);
+                transactionManager.notifyChanged(Interview.class, interview.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error updating interview: " + interview.getId(), e);
@@ -247,6 +471,40 @@ public class InterviewDaoJdbc implements InterviewDao {
         });
     }
     
+    @Override
+    public BatchResult insertAll(List<Interview> interviews) {
+        return new BatchWriter<Interview>(transactionManager, INSERT, InterviewDaoJdbc::bindInsert,
+                                          Interview.class, Interview::getId, false).writeAll(interviews);
+    }
+    
+    @Override
+    public BatchResult updateAll(List<Interview> interviews) {
+        return new BatchWriter<Interview>(transactionManager, UPDATE, InterviewDaoJdbc::bindUpdate,
+                                          Interview.class, Interview::getId, true).writeAll(interviews);
+    }
+    
+    private static void bindInsert(PreparedStatement pstmt, Interview interview) throws SQLException {
+        pstmt.setString(1, interview.getId());
+        pstmt.setString(2, interview.getRecruitment().getId());
+        pstmt.setString(3, interview.getApplicant().getId());
+        pstmt.setTimestamp(4, java.sql.Timestamp.valueOf(interview.getDateTime()));
+        pstmt.setString(5, interview.getLocation());
+        pstmt.setString(6, interview.getInterviewer());
+        pstmt.setString(7, interview.getStatus().name());
+        pstmt.setString(8, interview.getNotes());
+    }
+    
+    private static void bindUpdate(PreparedStatement pstmt, Interview interview) throws SQLException {
+        pstmt.setString(1, interview.getRecruitment().getId());
+        pstmt.setString(2, interview.getApplicant().getId());
+        pstmt.setTimestamp(3, java.sql.Timestamp.valueOf(interview.getDateTime()));
+        pstmt.setString(4, interview.getLocation());
+        pstmt.setString(5, interview.getInterviewer());
+        pstmt.setString(6, interview.getStatus().name());
+        pstmt.setString(7, interview.getNotes());
+        pstmt.setString(8, interview.getId());
+    }
+    
     @Override
     public void delete(String id) {
         String sql = "DELETE FROM interviews WHERE id = ?";
@@ -260,6 +518,8 @@ public class InterviewDaoJdbc implements InterviewDao {
                     throw new DataAccessException("Deleting interview failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().remove(Interview.class, id);
+                transactionManager.notifyChanged(Interview.class, id);
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error deleting interview with ID: " + id, e);
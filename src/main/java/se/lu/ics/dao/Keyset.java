@@ -0,0 +1,80 @@
+package se.lu.ics.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Function;
+import se.lu.ics.model.Page;
+import se.lu.ics.model.SortOrder;
+
+/**
+ * Helpers for keyset pagination.
+ * A page starts after the last key of the previous one ("id > ?" rather than "OFFSET n"), so with an
+ * index on the key the database seeks straight to the page instead of stepping over every earlier row.
+ * One row more than the limit is read to tell whether there is a next page.
+ */
+final class Keyset {
+    
+    private Keyset() {}
+    
+    /**
+     * Build the WHERE, ORDER BY and LIMIT clauses of a page query
+     * @param filter A condition with its own parameters, e.g. "i.recruitment_id = ?", or null for none
+     * @param keyColumn The unique column the pages are sorted and split on
+     * @param afterKey The key to start after, or null for the first page
+     * @param limit The page size
+     * @param order The sort order
+     * @return The clauses, to be appended to the SELECT
+     * @throws IllegalArgumentException If the limit is less than 1 or the sort order is null
+     */
+    static String clauses(String filter, String keyColumn, String afterKey, int limit, SortOrder order) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1");
+        }
+        if (order == null) {
+            throw new IllegalArgumentException("Sort order must not be null");
+        }
+        boolean ascending = order == SortOrder.ASCENDING;
+        StringBuilder sql = new StringBuilder();
+        if (filter != null) {
+            sql.append("WHERE ").append(filter).append(' ');
+        }
+        if (afterKey != null) {
+            sql.append(filter != null ? "AND " : "WHERE ")
+               .append(keyColumn).append(ascending ? " > ? " : " < ? ");
+        }
+        return sql.append("ORDER BY ").append(keyColumn).append(ascending ? " ASC" : " DESC")
+                  .append(" LIMIT ?").toString();
+    }
+    
+    /**
+     * Bind the after-key and limit, following any parameters of the filter
+     * @param pstmt The page query
+     * @param index The index of the first parameter after the filter's
+     * @param afterKey The key to start after, or null for the first page
+     * @param limit The page size
+     * @throws SQLException If a database access error occurs
+     */
+    static void bind(PreparedStatement pstmt, int index, String afterKey, int limit) throws SQLException {
+        if (afterKey != null) {
+            pstmt.setString(index++, afterKey);
+        }
+        pstmt.setInt(index, limit + 1);
+    }
+    
+    /**
+     * Turn the rows read by a page query into a page
+     * @param <T> The item type
+     * @param rows Up to limit + 1 rows, in page order
+     * @param limit The page size
+     * @param key The key of an item
+     * @return The page; its next key is set only if there was a row beyond the limit
+     */
+    static <T> Page<T> page(List<T> rows, int limit, Function<? super T, String> key) {
+        if (rows.size() <= limit) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new Page<>(items, key.apply(items.get(limit - 1)));
+    }
+}
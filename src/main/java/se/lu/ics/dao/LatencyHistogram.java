@@ -0,0 +1,117 @@
+package se.lu.ics.dao;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies with fixed, roughly logarithmic buckets from 50 µs to 10 s.
+ * Recording is lock-free; percentiles are estimated as the upper bound of the bucket they fall in.
+ */
+public class LatencyHistogram {
+    
+    /** Upper bounds of the buckets in microseconds; a last bucket holds everything slower */
+    private static final long[] BOUNDS_MICROS = {
+        50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+    
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    
+    /**
+     * Constructor that creates an empty histogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+    
+    /**
+     * Record one latency
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long micros = nanos / 1_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+    
+    /**
+     * @return The number of latencies recorded
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * @return The mean latency in milliseconds
+     */
+    public double getMeanMillis() {
+        long n = count.sum();
+        return n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n;
+    }
+    
+    /**
+     * @return The highest latency recorded, in milliseconds
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * Estimate a percentile
+     * @param percentile The percentile, between 0 and 100
+     * @return The upper bound of the bucket holding the percentile, in milliseconds
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(n * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MICROS[i] / 1_000.0, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+    
+    /**
+     * Get the bucket counts, labelled by their upper bound
+     * @return The number of latencies per bucket, fastest first
+     */
+    public Map<String, Long> getBuckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            result.put("<= " + BOUNDS_MICROS[i] / 1_000.0 + " ms", buckets[i].sum());
+        }
+        result.put("> " + BOUNDS_MICROS[BOUNDS_MICROS.length - 1] / 1_000.0 + " ms", buckets[BOUNDS_MICROS.length].sum());
+        return result;
+    }
+    
+    /**
+     * Forget everything recorded so far
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+    }
+}
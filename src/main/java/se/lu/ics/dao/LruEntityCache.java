@@ -0,0 +1,265 @@
+package se.lu.ics.dao;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Size-bounded read-through cache of one entity type by ID, shared by the caching DAOs.
+ * It is bounded both by a number of entries and by an estimate of the memory its copies take,
+ * and drops the least recently used entries until it is within both limits. The memory estimate comes
+ * from a weigher per entity type plus a fixed cost per entry; it is approximate and meant to keep
+ * unusually large rows from filling the heap, not to account for every byte.
+ * The cache keeps private copies: callers get their own copy, or inside a transaction the object in
+ * its identity map, so changing a returned entity never changes the cache.
+ * A load that overlapped an invalidation is not stored, so a row reloaded while a write was still
+ * uncommitted cannot outlive the invalidation that follows the commit. Write transactions bypass
+ * the cache, since they may see their own uncommitted changes.
+ * @param <T> The entity type
+ */
+final class LruEntityCache<T> {
+    
+    /**
+     * Copies an entity, so the cache and its callers never share an object
+     * @param <T> The entity type
+     */
+    interface Copier<T> {
+        /**
+         * Copy an entity
+         * @param entity The entity
+         * @param identities The identity map to take or add shared related entities from, or null outside a transaction
+         * @return The copy
+         */
+        T copy(T entity, IdentityMap identities);
+    }
+    
+    /** Estimated cost of an entry besides the entity: the map entry, its table slot and the list links */
+    static final long ENTRY_OVERHEAD_BYTES = 64;
+    
+    /** Estimated size of an object header plus a few fields */
+    static final long OBJECT_BYTES = 32;
+    
+    /** Estimated size of a LocalDate or LocalDateTime, counting the objects it holds */
+    static final long DATE_BYTES = 48;
+    
+    private final TransactionManager transactionManager;
+    private final Class<T> type;
+    private final Function<T, String> idOf;
+    private final Copier<T> copier;
+    private final int maxSize;
+    private final ToLongFunction<T> weigher;
+    private final long maxBytes;
+    private final CacheStats stats;
+    // Access order, so the eldest entry is the least recently used one
+    private final LinkedHashMap<String, T> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long generation;
+    
+    /**
+     * Constructor
+     * @param transactionManager The transaction manager the DAOs run in
+     * @param type The entity class
+     * @param idOf Gets the ID of an entity
+     * @param copier Copies an entity
+     * @param name The name the statistics are published under
+     * @param maxSize The maximum number of entities kept, 0 to cache nothing
+     * @param weigher Estimates the memory taken by a cached entity, in bytes
+     * @param maxBytes The maximum estimated memory taken by the cached entities, in bytes
+     * @throws IllegalArgumentException If a limit is negative
+     */
+    LruEntityCache(TransactionManager transactionManager, Class<T> type, Function<T, String> idOf,
+                   Copier<T> copier, String name, int maxSize, ToLongFunction<T> weigher, long maxBytes) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxSize);
+        }
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Cache memory limit must not be negative: " + maxBytes);
+        }
+        this.transactionManager = transactionManager;
+        this.type = type;
+        this.idOf = idOf;
+        this.copier = copier;
+        this.maxSize = maxSize;
+        this.weigher = weigher;
+        this.maxBytes = maxBytes;
+        this.stats = new CacheStats(name);
+    }
+    
+    /**
+     * @return The hit, miss and eviction counts
+     */
+    CacheStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * @return The number of entities cached now
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+    
+    /**
+     * @return The estimated memory taken by the cached entities now, in bytes
+     */
+    synchronized long estimatedBytes() {
+        return bytes;
+    }
+    
+    /**
+     * Estimate the memory taken by a string
+     * @param s The string, or null
+     * @return The estimate in bytes, counting two bytes per character so it errs on the high side
+     */
+    static long stringBytes(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+    
+    /**
+     * Find an entity in the cache, or load it and cache it
+     * @param id The entity ID
+     * @param loader Reads the entity from the database
+     * @return The entity if it exists
+     */
+    Optional<T> find(String id, Function<String, Optional<T>> loader) {
+        if (transactionManager.isInWriteTransaction()) {
+            return loader.apply(id);
+        }
+        
+        long loadedAt;
+        synchronized (this) {
+            T cached = entries.get(id);
+            if (cached != null) {
+                stats.recordHits(1);
+                return Optional.of(share(cached));
+            }
+            stats.recordMisses(1);
+            loadedAt = generation;
+        }
+        
+        Optional<T> entity = loader.apply(id);
+        entity.ifPresent(e -> store(e, loadedAt));
+        return entity;
+    }
+    
+    /**
+     * Find many entities, loading only those not in the cache
+     * @param ids The entity IDs; duplicates and nulls are ignored
+     * @param loader Reads entities from the database by ID
+     * @return Map from ID to entity; IDs that do not exist are absent
+     */
+    Map<String, T> findAllByIds(Collection<String> ids, Function<Collection<String>, Map<String, T>> loader) {
+        if (transactionManager.isInWriteTransaction()) {
+            return loader.apply(ids);
+        }
+        
+        Map<String, T> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long loadedAt;
+        synchronized (this) {
+            for (String id : ids) {
+                if (id == null || found.containsKey(id)) {
+                    continue;
+                }
+                T cached = entries.get(id);
+                if (cached != null) {
+                    found.put(id, cached);
+                } else {
+                    missing.add(id);
+                }
+            }
+            stats.recordHits(found.size());
+            stats.recordMisses(missing.size());
+            loadedAt = generation;
+        }
+        found.replaceAll((id, cached) -> share(cached));
+        if (missing.isEmpty()) {
+            return found;
+        }
+        
+        for (T entity : loader.apply(missing).values()) {
+            store(entity, loadedAt);
+            found.put(idOf.apply(entity), entity);
+        }
+        return found;
+    }
+    
+    /**
+     * Drop an entity because its row changed
+     * @param id The entity ID, or null to drop every entity
+     */
+    synchronized void invalidate(String id) {
+        generation++;
+        if (id == null) {
+            entries.clear();
+            bytes = 0;
+        } else {
+            T removed = entries.remove(id);
+            if (removed != null) {
+                bytes -= weigh(removed);
+            }
+        }
+        stats.recordInvalidation();
+    }
+    
+    /**
+     * Cache a copy of a loaded entity, unless the cache was invalidated while it was loading
+     * @param entity The entity read from the database
+     * @param loadedAt The generation of the cache when the load started
+     */
+    private synchronized void store(T entity, long loadedAt) {
+        if (maxSize > 0 && generation == loadedAt) {
+            T copy = copier.copy(entity, null);
+            T replaced = entries.put(idOf.apply(copy), copy);
+            if (replaced != null) {
+                bytes -= weigh(replaced);
+            }
+            bytes += weigh(copy);
+            evictOverflow();
+        }
+    }
+    
+    /**
+     * Drop least recently used entities until the cache is within its entry and memory limits
+     */
+    private void evictOverflow() {
+        Iterator<T> eldest = entries.values().iterator();
+        while ((entries.size() > maxSize || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= weigh(eldest.next());
+            eldest.remove();
+            stats.recordEviction();
+        }
+    }
+    
+    /**
+     * Estimate the memory an entry takes; the same for an entity every time, since cached copies never change
+     * @param entity A cached entity
+     * @return The estimate in bytes
+     */
+    private long weigh(T entity) {
+        return ENTRY_OVERHEAD_BYTES + weigher.applyAsLong(entity);
+    }
+    
+    /**
+     * Get the caller's object for a cached entity: the one in the transaction's identity map,
+     * or a new copy that is added to it
+     * @param cached The cached entity
+     * @return An entity the caller may change
+     */
+    private T share(T cached) {
+        IdentityMap identities = transactionManager.identityMap();
+        if (identities == null) {
+            return copier.copy(cached, null);
+        }
+        String id = idOf.apply(cached);
+        T known = identities.get(type, id);
+        return known != null ? known : identities.put(type, id, copier.copy(cached, identities));
+    }
+}
@@ -1,8 +1,15 @@
 package se.lu.ics.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import se.lu.ics.model.LeaderboardEntry;
+import se.lu.ics.model.Page;
 import se.lu.ics.model.Recruitment;
+import se.lu.ics.model.RecruitmentRow;
+import se.lu.ics.model.SortOrder;
 
 /**
  * Data Access Object interface for Recruitment entities.
@@ -22,6 +29,57 @@ public interface RecruitmentDao {
      */
     List<Recruitment> findAll();
     
+    /**
+     * Find one page of recruitments, sorted by ID, using keyset pagination
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws IllegalArgumentException If the limit is less than 1 or the order is null
+     */
+    Page<Recruitment> findAll(String afterId, int limit, SortOrder order);
+    
+    /**
+     * Pass every recruitment to an action while reading them from an open cursor, without building a list.
+     * The action runs inside the read transaction; the connection is released when this method returns,
+     * also if the action throws.
+     * @param action The action to run for each recruitment
+     */
+    void forEach(Consumer<? super Recruitment> action);
+    
+    /**
+     * Pass every recruitment to an action while reading them from an open cursor, without building a list
+     * @param fetchSize The number of rows the driver should fetch at a time
+     * @param action The action to run for each recruitment
+     */
+    void forEach(int fetchSize, Consumer<? super Recruitment> action);
+    
+    /**
+     * Find many recruitments at once, one query per chunk of IDs that fits SQLite's parameter limit
+     * @param ids The recruitment IDs; duplicates and nulls are ignored
+     * @return Map from ID to recruitment; IDs that do not exist are absent
+     */
+    Map<String, Recruitment> findAllByIds(Collection<String> ids);
+    
+    /**
+     * Find all recruitments with their applicant count set, counted in the same query
+     * @return List of all recruitments with {@link Recruitment#getApplicantCount()} filled in
+     */
+    List<Recruitment> findAllWithApplicantCounts();
+    
+    /**
+     * Find the displayed fields of all recruitments, without loading full recruitments and roles
+     * @return List of rows for all recruitments, with their applicant counts
+     */
+    List<RecruitmentRow> findAllRows();
+    
+    /**
+     * Rank the recruitments by their number of applicants
+     * @param limit The maximum number of entries to return
+     * @return The top recruitments with their applicant count set, most applicants first and ties by ascending ID
+     */
+    List<LeaderboardEntry<Recruitment>> findTopByApplicantCount(int limit);
+    
     /**
      * Insert a new recruitment
      * @param recruitment The recruitment to insert
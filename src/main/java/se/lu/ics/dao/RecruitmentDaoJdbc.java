@@ -6,103 +6,204 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import se.lu.ics.exception.DataAccessException;
+import se.lu.ics.model.LeaderboardEntry;
+import se.lu.ics.model.Page;
 import se.lu.ics.model.Recruitment;
+import se.lu.ics.model.RecruitmentRow;
 import se.lu.ics.model.RecruitmentStatus;
 import se.lu.ics.model.Role;
+import se.lu.ics.model.SortOrder;
 
 /**
  * JDBC implementation of the RecruitmentDao interface.
  */
 public class RecruitmentDaoJdbc implements RecruitmentDao {
     
+    /** Recruitment columns read by {@link #map(RowDecoder, Role)}, in the order of the index constants below */
+    static final String[] COLUMNS = {"id", "role_id", "application_deadline", "posting_date", "offer_acceptance_date", "status"};
+    static final int ID = 0;
+    static final int ROLE_ID = 1;
+    private static final int APPLICATION_DEADLINE = 2;
+    private static final int POSTING_DATE = 3;
+    private static final int OFFER_ACCEPTANCE_DATE = 4;
+    private static final int STATUS = 5;
+    private static final RecruitmentStatus[] STATUSES = RecruitmentStatus.values();
+    
+    /** Rows fetched at a time when streaming */
+    private static final int DEFAULT_FETCH_SIZE = 256;
+    
+    /**
+     * Loads recruitments together with their role in one statement
+     */
+    private static final String SELECT_WITH_ROLE = """
+        SELECT r.id, r.role_id, r.application_deadline, r.posting_date, r.offer_acceptance_date, r.status,
+               ro.id AS ro_id, ro.title AS ro_title, ro.description AS ro_description, ro.department AS ro_department
+        FROM recruitments r
+        LEFT JOIN roles ro ON ro.id = r.role_id
+        """;
+    
+    /**
+     * Loads recruitments with their role and number of applications; the counts come from one
+     * GROUP BY over the recruitment_id index of applications
+     */
+    private static final String SELECT_WITH_ROLE_AND_COUNT = """
+        SELECT r.id, r.role_id, r.application_deadline, r.posting_date, r.offer_acceptance_date, r.status,
+               ro.id AS ro_id, ro.title AS ro_title, ro.description AS ro_description, ro.department AS ro_department,
+               COALESCE(c.applicant_count, 0) AS applicant_count
+        FROM recruitments r
+        LEFT JOIN roles ro ON ro.id = r.role_id
+        LEFT JOIN (SELECT recruitment_id, COUNT(*) AS applicant_count
+                   FROM applications
+                   GROUP BY recruitment_id) c ON c.recruitment_id = r.id
+        """;
+    
+    /** Only the columns of the recruitment table, read by position in {@link #findAllRows()} */
+    private static final String SELECT_ROW = """
+        SELECT r.id, r.role_id, ro.title, r.application_deadline, r.status,
+               COALESCE(c.applicant_count, 0) AS applicant_count
+        FROM recruitments r
+        LEFT JOIN roles ro ON ro.id = r.role_id
+        LEFT JOIN (SELECT recruitment_id, COUNT(*) AS applicant_count
+                   FROM applications
+                   GROUP BY recruitment_id) c ON c.recruitment_id = r.id
+        """;
+    
     private final TransactionManager transactionManager;
-    private final RoleDao roleDao;
     
     /**
-     * Constructor that takes a transaction manager and role DAO
+     * Constructor that takes a transaction manager
      * @param transactionManager The transaction manager
-     * @param roleDao The role DAO
      */
-    public RecruitmentDaoJdbc(TransactionManager transactionManager, RoleDao roleDao) {
+    public RecruitmentDaoJdbc(TransactionManager transactionManager) {
         this.transactionManager = transactionManager;
-        this.roleDao = roleDao;
     }
     
     /**
-     * Maps a ResultSet row to a Recruitment object
-     * @param rs The ResultSet containing recruitment data
-     * @return A new Recruitment object
-     * @throws SQLException If a database access error occurs
+     * Reads recruitments and their joined role from one result set of {@link #SELECT_WITH_ROLE}
+     * or {@link #SELECT_WITH_ROLE_AND_COUNT}
      */
-    private Recruitment mapRow(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String roleId = rs.getString("role_id");
-        
-        // Handle different date formats
-        LocalDate postingDate;
-        String postingDateStr = rs.getString("posting_date");
-        if (postingDateStr.contains(" ")) {
-            // Handle timestamp format "2025-05-20 22:05:14"
-            postingDate = LocalDate.parse(postingDateStr.split(" ")[0]);
-        } else {
-            // Handle simple date format "2025-07-17"
-            postingDate = LocalDate.parse(postingDateStr);
-        }
+    private static final class RecruitmentRows {
+        private final RowDecoder row;
+        private final RowDecoder roleRow;
+        private final IdentityMap identities;
         
-        LocalDate applicationDeadline;
-        String deadlineStr = rs.getString("application_deadline");
-        if (deadlineStr.contains(" ")) {
-            applicationDeadline = LocalDate.parse(deadlineStr.split(" ")[0]);
-        } else {
-            applicationDeadline = LocalDate.parse(deadlineStr);
+        /**
+         * Constructor that resolves the columns of a result set
+         * @param rs The result set to read from
+         * @param identities The identity map of the current transaction; recruitments and roles
+         *                   already materialized in it are reused instead of built again
+         * @throws SQLException If a database access error occurs
+         */
+        RecruitmentRows(ResultSet rs, IdentityMap identities) throws SQLException {
+            this.row = new RowDecoder(rs, "", COLUMNS);
+            this.roleRow = new RowDecoder(rs, "ro_", RoleDaoJdbc.COLUMNS);
+            this.identities = identities;
         }
         
-        LocalDate offerAcceptanceDate = null;
-        String acceptanceDateStr = rs.getString("offer_acceptance_date");
-        if (acceptanceDateStr != null && !acceptanceDateStr.isEmpty()) {
-            if (acceptanceDateStr.contains(" ")) {
-                offerAcceptanceDate = LocalDate.parse(acceptanceDateStr.split(" ")[0]);
-            } else {
-                offerAcceptanceDate = LocalDate.parse(acceptanceDateStr);
+        /**
+         * Maps the current row to a Recruitment object
+         * @return The one Recruitment object for the row's ID in this unit of work
+         * @throws SQLException If a database access error occurs
+         */
+        Recruitment map() throws SQLException {
+            String id = row.getString(ID);
+            Recruitment recruitment = identities.get(Recruitment.class, id);
+            if (recruitment != null) {
+                return recruitment;
             }
+            return identities.put(Recruitment.class, id, RecruitmentDaoJdbc.map(row, roleOf(row, roleRow, identities)));
+        }
+    }
+    
+    /**
+     * Gets the role joined to a recruitment row from the identity map, mapping it the first time
+     * @param row The decoder for the recruitment columns
+     * @param roleRow The decoder for the joined role columns
+     * @param identities The identity map of the current transaction
+     * @return The role
+     * @throws SQLException If a database access error occurs
+     * @throws DataAccessException If the recruitment's role does not exist
+     */
+    static Role roleOf(RowDecoder row, RowDecoder roleRow, IdentityMap identities) throws SQLException {
+        String roleId = row.getString(ROLE_ID);
+        Role role = identities.get(Role.class, roleId);
+        if (role == null) {
+            if (roleRow.getString(RoleDaoJdbc.ID) == null) {
+                throw new DataAccessException("Role not found for ID: " + roleId);
+            }
+            role = RoleDaoJdbc.resolve(roleRow, identities);
+        }
+        return role;
+    }
+    
+    /**
+     * Maps a row to a Recruitment object
+     * @param row The decoder for the recruitment columns, see {@link #COLUMNS}
+     * @param role The role of the recruitment
+     * @return A new Recruitment object
+     * @throws SQLException If a database access error occurs
+     */
+    static Recruitment map(RowDecoder row, Role role) throws SQLException {
+        String id = row.getString(ID);
+        
+        // Dates are ISO dates, sometimes with a time part ("2025-05-20 22:05:14") that is ignored
+        LocalDate postingDate = row.getDate(POSTING_DATE);
+        LocalDate applicationDeadline = row.getDate(APPLICATION_DEADLINE);
+        if (postingDate == null || applicationDeadline == null) {
+            throw new DataAccessException("Unreadable dates for recruitment " + id + ": " +
+                                          row.getString(POSTING_DATE) + ", " + row.getString(APPLICATION_DEADLINE));
         }
+        LocalDate offerAcceptanceDate = row.getDate(OFFER_ACCEPTANCE_DATE);
+        
+        RecruitmentStatus status = parseStatus(row.getString(STATUS));
         
-        String statusStr = rs.getString("status");
-        RecruitmentStatus status;
-        try {
-            // Try to convert directly
-            status = RecruitmentStatus.valueOf(statusStr.replace(" ", "_"));
-        } catch (IllegalArgumentException e) {
+        return new Recruitment(id, role, postingDate, applicationDeadline, offerAcceptanceDate, status);
+    }
+    
+    /**
+     * Parse a stored recruitment status
+     * @param statusStr The stored status
+     * @return The status
+     * @throws DataAccessException If the status is not recognised
+     */
+    static RecruitmentStatus parseStatus(String statusStr) {
+        RecruitmentStatus status = RowDecoder.parseEnum(statusStr, STATUSES);
+        if (status == null) {
             // Handle non-standard status values
-            if ("On_Hold".equals(statusStr) || "On Hold".equals(statusStr) || "Active".equals(statusStr)) {
+            if (statusStr != null && (RowDecoder.nameEquals(statusStr, "ON_HOLD") || RowDecoder.nameEquals(statusStr, "ACTIVE"))) {
                 status = RecruitmentStatus.OPEN;
             } else {
-                throw new DataAccessException("Unknown recruitment status: " + statusStr, e);
+                throw new DataAccessException("Unknown recruitment status: " + statusStr);
             }
         }
-        
-        // Fetch the associated Role using the RoleDao
-        Role role = roleDao.find(roleId)
-                .orElseThrow(() -> new DataAccessException("Role not found for ID: " + roleId));
-        
-        return new Recruitment(id, role, postingDate, applicationDeadline, offerAcceptanceDate, status);
+        return status;
     }
     
     @Override
     public Optional<Recruitment> find(String id) {
-        String sql = "SELECT * FROM recruitments WHERE id = ?";
+        String sql = SELECT_WITH_ROLE + "WHERE r.id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        IdentityMap identities = transactionManager.identityMap();
+        Recruitment known = identities != null ? identities.get(Recruitment.class, id) : null;
+        if (known != null) {
+            return Optional.of(known);
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, id);
                 ResultSet rs = pstmt.executeQuery();
                 
                 if (rs.next()) {
-                    return Optional.of(mapRow(rs));
+                    return Optional.of(new RecruitmentRows(rs, transactionManager.identityMap()).map());
                 }
                 return Optional.empty();
             } catch (SQLException e) {
@@ -114,14 +215,15 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
     @Override
     public List<Recruitment> findAll() {
         List<Recruitment> recruitments = new ArrayList<>();
-        String sql = "SELECT * FROM recruitments";
+        String sql = SELECT_WITH_ROLE;
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql);
                  ResultSet rs = pstmt.executeQuery()) {
                 
+                RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
                 while (rs.next()) {
-                    recruitments.add(mapRow(rs));
+                    recruitments.add(rows.map());
                 }
                 return recruitments;
             } catch (SQLException e) {
@@ -130,6 +232,168 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
         });
     }
     
+    @Override
+    public Page<Recruitment> findAll(String afterId, int limit, SortOrder order) {
+        List<Recruitment> recruitments = new ArrayList<>();
+        String sql = SELECT_WITH_ROLE + Keyset.clauses(null, "r.id", afterId, limit, order);
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                Keyset.bind(pstmt, 1, afterId, limit);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
+                    while (rs.next()) {
+                        recruitments.add(rows.map());
+                    }
+                }
+                return Keyset.page(recruitments, limit, Recruitment::getId);
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding a page of recruitments after: " + afterId, e);
+            }
+        });
+    }
+    
+    @Override
+    public void forEach(Consumer<? super Recruitment> action) {
+        forEach(DEFAULT_FETCH_SIZE, action);
+    }
+    
+    @Override
+    public void forEach(int fetchSize, Consumer<? super Recruitment> action) {
+        String sql = SELECT_WITH_ROLE;
+        
+        transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setFetchSize(fetchSize);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
+                    while (rs.next()) {
+                        action.accept(rows.map());
+                    }
+                }
+                return null;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error streaming recruitments", e);
+            }
+        });
+    }
+    
+    @Override
+    public Map<String, Recruitment> findAllByIds(Collection<String> ids) {
+        Map<String, Recruitment> recruitments = new HashMap<>();
+        List<List<String>> chunks = InClause.chunks(ids);
+        if (chunks.isEmpty()) {
+            return recruitments;
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
+            // Only the recruitments not yet materialized in this unit of work are queried
+            IdentityMap identities = transactionManager.identityMap();
+            for (List<String> chunk : InClause.chunks(identities.getAll(Recruitment.class, ids, recruitments))) {
+                String sql = SELECT_WITH_ROLE + "WHERE r.id IN " + InClause.placeholders(chunk.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    
+                    RecruitmentRows rows = new RecruitmentRows(rs, identities);
+                    while (rs.next()) {
+                        Recruitment recruitment = rows.map();
+                        recruitments.put(recruitment.getId(), recruitment);
+                    }
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error finding recruitments by IDs", e);
+                }
+            }
+            return recruitments;
+        });
+    }
+    
+    @Override
+    public List<Recruitment> findAllWithApplicantCounts() {
+        List<Recruitment> recruitments = new ArrayList<>();
+        String sql = SELECT_WITH_ROLE_AND_COUNT;
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
+                RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
+                int countColumn = rs.findColumn("applicant_count");
+                while (rs.next()) {
+                    Recruitment recruitment = rows.map();
+                    recruitment.setApplicantCount(rs.getInt(countColumn));
+                    recruitments.add(recruitment);
+                }
+                return recruitments;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding all recruitments with applicant counts", e);
+            }
+        });
+    }
+    
+    @Override
+    public List<RecruitmentRow> findAllRows() {
+        List<RecruitmentRow> rows = new ArrayList<>();
+        String sql = SELECT_ROW;
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql);
+                 ResultSet rs = pstmt.executeQuery()) {
+                
+                while (rs.next()) {
+                    String id = rs.getString(1);
+                    String roleTitle = rs.getString(3);
+                    if (roleTitle == null) {
+                        throw new DataAccessException("Role not found for ID: " + rs.getString(2));
+                    }
+                    LocalDate applicationDeadline = RowDecoder.parseDate(rs.getString(4));
+                    if (applicationDeadline == null) {
+                        throw new DataAccessException("Unreadable deadline for recruitment " + id + ": " + rs.getString(4));
+                    }
+                    rows.add(new RecruitmentRow(id, roleTitle, applicationDeadline,
+                                                parseStatus(rs.getString(5)), rs.getInt(6)));
+                }
+                return rows;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error finding recruitment rows", e);
+            }
+        });
+    }
+    
+    @Override
+    public List<LeaderboardEntry<Recruitment>> findTopByApplicantCount(int limit) {
+        List<LeaderboardEntry<Recruitment>> leaderboard = new ArrayList<>();
+        String sql = SELECT_WITH_ROLE_AND_COUNT + "ORDER BY applicant_count DESC, r.id ASC LIMIT ?";
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, limit);
+                ResultSet rs = pstmt.executeQuery();
+                
+                RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
+                int countColumn = rs.findColumn("applicant_count");
+                int rank = 0;
+                int previousCount = -1;
+                while (rs.next()) {
+                    int count = rs.getInt(countColumn);
+                    // Ties share a rank, the next count skips the places they took
+                    if (count != previousCount) {
+                        rank = leaderboard.size() + 1;
+                        previousCount = count;
+                    }
+                    Recruitment recruitment = rows.map();
+                    recruitment.setApplicantCount(count);
+                    leaderboard.add(new LeaderboardEntry<>(rank, recruitment, count));
+                }
+                return leaderboard;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error ranking recruitments by applicant count", e);
+            }
+        });
+    }
+    
     @Override
     public void insert(Recruitment recruitment) {
         String sql = "INSERT INTO recruitments (id, role_id, posting_date, application_deadline, offer_acceptance_date, status) " +
@@ -155,6 +419,8 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
                     throw new DataAccessException("Creating recruitment failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Recruitment.class, recruitment.getId(), recruitment);
+                transactionManager.notifyChanged(Recruitment.class, recruitment.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error inserting recruitment: " + recruitment.getId(), e);
@@ -187,6 +453,8 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
                     throw new DataAccessException("Updating recruitment failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Recruitment.class, recruitment.getId(), recruitment);
+                transactionManager.notifyChanged(Recruitment.class, recruitment.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error updating recruitment: " + recruitment.getId(), e);
@@ -207,6 +475,8 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
                     throw new DataAccessException("Deleting recruitment failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().remove(Recruitment.class, id);
+                transactionManager.notifyChanged(Recruitment.class, id);
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error deleting recruitment with ID: " + id, e);
@@ -217,15 +487,16 @@ public class RecruitmentDaoJdbc implements RecruitmentDao {
     @Override
     public List<Recruitment> findByRole(String roleId) {
         List<Recruitment> recruitments = new ArrayList<>();
-        String sql = "SELECT * FROM recruitments WHERE role_id = ?";
+        String sql = SELECT_WITH_ROLE + "WHERE r.role_id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, roleId);
                 ResultSet rs = pstmt.executeQuery();
                 
+                RecruitmentRows rows = new RecruitmentRows(rs, transactionManager.identityMap());
                 while (rs.next()) {
-                    recruitments.add(mapRow(rs));
+                    recruitments.add(rows.map());
                 }
                 return recruitments;
             } catch (SQLException e) {
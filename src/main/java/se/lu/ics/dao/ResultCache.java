@@ -0,0 +1,148 @@
+package se.lu.ics.dao;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Cache of computed results, e.g. reports, keyed by what was computed and with which parameters.
+ * Each result is tagged with the data version of the transaction manager read before computing it
+ * and is served only while that version is still the current one, so any committed write or detected
+ * outside change makes every result stale without having to know which results it affects.
+ * A cached result is either immutable and shared by every caller, or copied for each caller
+ * by a copier given with the lookup, e.g. when it holds entities.
+ * Calls inside a transaction bypass the cache: a write transaction may see its own uncommitted changes,
+ * and a transaction begun earlier may read a snapshot older than the current version.
+ */
+public class ResultCache {
+    
+    /** Default maximum number of results kept */
+    public static final int DEFAULT_MAX_SIZE = 200;
+    
+    private final TransactionManager transactionManager;
+    private final int maxSize;
+    private final CacheStats stats;
+    private final Map<List<?>, Entry> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * A result and the data version it was computed from
+     */
+    private static final class Entry {
+        private final long version;
+        private final Object value;
+        
+        Entry(long version, Object value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+    
+    /**
+     * Constructor with the default size
+     * @param transactionManager The transaction manager whose data version the results are tied to
+     * @param name The name the statistics are published under
+     */
+    public ResultCache(TransactionManager transactionManager, String name) {
+        this(transactionManager, name, DEFAULT_MAX_SIZE);
+    }
+    
+    /**
+     * Constructor that takes the size
+     * @param transactionManager The transaction manager whose data version the results are tied to
+     * @param name The name the statistics are published under
+     * @param maxSize The maximum number of results kept, 0 to cache nothing
+     * @throws IllegalArgumentException If the maximum size is negative
+     */
+    public ResultCache(TransactionManager transactionManager, String name, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size must not be negative: " + maxSize);
+        }
+        this.transactionManager = transactionManager;
+        this.maxSize = maxSize;
+        this.stats = new CacheStats(name);
+        transactionManager.getMetrics().registerCache(stats);
+    }
+    
+    /**
+     * Get the hit and miss counts of the cache
+     * @return The cache statistics
+     */
+    public CacheStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * @return The number of results kept now, including stale ones not yet dropped
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    /**
+     * Get a result from the cache, or compute it and cache it. The result is shared by every caller,
+     * so it must be immutable, e.g. an unmodifiable map of immutable values.
+     * @param <T> The result type
+     * @param key What is computed and its parameters, e.g. List.of("recruitmentReport", id); must not change
+     * @param compute Computes the result from the database
+     * @return The result, possibly null
+     */
+    public <T> T get(List<?> key, Supplier<T> compute) {
+        return get(key, compute, UnaryOperator.identity());
+    }
+    
+    /**
+     * Get a result from the cache, or compute it and cache it, giving the caller its own copy.
+     * The cached result itself is never handed out, so changing a returned result does not change the cache.
+     * @param <T> The result type
+     * @param key What is computed and its parameters, e.g. List.of("recruitmentReport", id); must not change
+     * @param compute Computes the result from the database
+     * @param copier Copies a non-null result for a caller
+     * @return The caller's copy of the result, possibly null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(List<?> key, Supplier<T> compute, UnaryOperator<T> copier) {
+        if (transactionManager.isInTransaction()) {
+            return compute.get();
+        }
+        
+        // Read before computing: a write committed meanwhile leaves the result tagged with an old version
+        long version = transactionManager.getDataVersion();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.version == version) {
+            stats.recordHits(1);
+            return entry.value != null ? copier.apply((T) entry.value) : null;
+        }
+        
+        stats.recordMisses(1);
+        T value = compute.get();
+        if (maxSize > 0 && transactionManager.getDataVersion() == version) {
+            if (entries.size() >= maxSize && !entries.containsKey(key)) {
+                makeRoom(version);
+            }
+            entries.put(key, new Entry(version, value));
+        }
+        return value != null ? copier.apply(value) : null;
+    }
+    
+    /**
+     * Drop every result, e.g. after the database was changed without the transaction manager knowing
+     */
+    public void invalidateAll() {
+        entries.clear();
+        stats.recordInvalidation();
+    }
+    
+    /**
+     * Drop the stale results, or every result if all of them are current
+     * @param version The current data version
+     */
+    private void makeRoom(long version) {
+        entries.values().removeIf(e -> e.version != version);
+        if (entries.size() >= maxSize) {
+            entries.clear();
+            stats.recordEviction();
+        }
+    }
+}
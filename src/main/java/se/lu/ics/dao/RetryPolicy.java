@@ -0,0 +1,75 @@
+package se.lu.ics.dao;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How a transaction is retried when SQLite reports the database as busy or locked.
+ * The wait before each retry doubles from the initial backoff up to the maximum, with random jitter
+ * so that competing callers do not retry in lockstep, and retrying stops once the deadline has passed.
+ */
+public class RetryPolicy {
+    
+    /** Default policy: 5 ms initial backoff, at most 500 ms between attempts, give up after 10 s */
+    public static final RetryPolicy DEFAULT = new RetryPolicy(5, 500, 10_000);
+    
+    /** Policy that never retries */
+    public static final RetryPolicy NONE = new RetryPolicy(0, 0, 0);
+    
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long deadlineMillis;
+    
+    /**
+     * Constructor that takes the backoff bounds and the deadline
+     * @param initialBackoffMillis The wait before the first retry
+     * @param maxBackoffMillis The longest wait between two attempts
+     * @param deadlineMillis How long after the first attempt a transaction may still be retried
+     */
+    public RetryPolicy(long initialBackoffMillis, long maxBackoffMillis, long deadlineMillis) {
+        if (initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis || deadlineMillis < 0) {
+            throw new IllegalArgumentException("Invalid retry policy");
+        }
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.deadlineMillis = deadlineMillis;
+    }
+    
+    /**
+     * Get the wait before a retry: exponential in the attempt number, capped, with the upper half jittered
+     * @param attempt The number of attempts that have failed so far, starting at 1
+     * @return The time to wait in milliseconds
+     */
+    public long backoffMillis(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+    
+    /**
+     * @return The wait before the first retry, in milliseconds
+     */
+    public long getInitialBackoffMillis() {
+        return initialBackoffMillis;
+    }
+    
+    /**
+     * @return The longest wait between two attempts, in milliseconds
+     */
+    public long getMaxBackoffMillis() {
+        return maxBackoffMillis;
+    }
+    
+    /**
+     * @return How long after the first attempt a transaction may still be retried, in milliseconds
+     */
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("RetryPolicy[initial=%d ms, max=%d ms, deadline=%d ms]",
+                             initialBackoffMillis, maxBackoffMillis, deadlineMillis);
+    }
+}
@@ -1,7 +1,10 @@
 package se.lu.ics.dao;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import se.lu.ics.model.LeaderboardEntry;
 import se.lu.ics.model.Role;
 
 /**
@@ -22,6 +25,20 @@ public interface RoleDao {
      */
     List<Role> findAll();
     
+    /**
+     * Find many roles at once, one query per chunk of IDs that fits SQLite's parameter limit
+     * @param ids The role IDs; duplicates and nulls are ignored
+     * @return Map from ID to role; IDs that do not exist are absent
+     */
+    Map<String, Role> findAllByIds(Collection<String> ids);
+    
+    /**
+     * Rank the roles by their number of applicants across all their recruitments
+     * @param limit The maximum number of entries to return
+     * @return The top roles, most applicants first and ties by ascending role ID
+     */
+    List<LeaderboardEntry<Role>> findTopByApplicantCount(int limit);
+    
     /**
      * Insert a new role and set its generated ID
      * @param role The role to insert
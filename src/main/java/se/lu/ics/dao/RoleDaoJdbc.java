@@ -6,12 +6,16 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import javax.sql.DataSource;
 
 import se.lu.ics.exception.DataAccessException;
+import se.lu.ics.model.LeaderboardEntry;
 import se.lu.ics.model.Role;
 
 /**
@@ -19,6 +23,15 @@ import se.lu.ics.model.Role;
  */
 public class RoleDaoJdbc implements RoleDao {
     
+    /** Role columns read by {@link #map(RowDecoder)}, in the order of the index constants below */
+    static final String[] COLUMNS = {"id", "title", "description", "department"};
+    static final int ID = 0;
+    private static final int TITLE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int DEPARTMENT = 3;
+    
+    private static final String SELECT = "SELECT id, title, description, department FROM roles ";
+    
     private final TransactionManager transactionManager;
     
     /**
@@ -30,31 +43,45 @@ public class RoleDaoJdbc implements RoleDao {
     }
     
     /**
-     * Maps a ResultSet row to a Role object
-     * @param rs The ResultSet containing role data
+     * Maps a row to a Role object
+     * @param row The decoder for the role columns, see {@link #COLUMNS}
      * @return A new Role object
      * @throws SQLException If a database access error occurs
      */
-    private Role map(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String title = rs.getString("title");
-        String description = rs.getString("description");
-        String department = rs.getString("department");
-        
-        return new Role(id, title, description, department);
+    static Role map(RowDecoder row) throws SQLException {
+        return new Role(row.getString(ID), row.getString(TITLE), row.getString(DESCRIPTION), row.getString(DEPARTMENT));
+    }
+    
+    /**
+     * Gets the role of a row from the identity map, mapping and adding it the first time
+     * @param row The decoder for the role columns, see {@link #COLUMNS}
+     * @param identities The identity map of the current transaction
+     * @return The one Role object for the row's ID in this unit of work
+     * @throws SQLException If a database access error occurs
+     */
+    static Role resolve(RowDecoder row, IdentityMap identities) throws SQLException {
+        String id = row.getString(ID);
+        Role role = identities.get(Role.class, id);
+        return role != null ? role : identities.put(Role.class, id, map(row));
     }
     
     @Override
     public Optional<Role> find(String id) {
-        String sql = "SELECT * FROM roles WHERE id = ?";
+        String sql = SELECT + "WHERE id = ?";
         
-        return transactionManager.executeInTransaction(conn -> {
+        IdentityMap identities = transactionManager.identityMap();
+        Role known = identities != null ? identities.get(Role.class, id) : null;
+        if (known != null) {
+            return Optional.of(known);
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
                 pstmt.setString(1, id);
                 ResultSet rs = pstmt.executeQuery();
                 
                 if (rs.next()) {
-                    return Optional.of(map(rs));
+                    return Optional.of(resolve(new RowDecoder(rs, "", COLUMNS), transactionManager.identityMap()));
                 }
                 return Optional.empty();
             } catch (SQLException e) {
@@ -66,14 +93,16 @@ public class RoleDaoJdbc implements RoleDao {
     @Override
     public List<Role> findAll() {
         List<Role> roles = new ArrayList<>();
-        String sql = "SELECT * FROM roles";
+        String sql = SELECT;
         
-        return transactionManager.executeInTransaction(conn -> {
+        return transactionManager.executeReadOnly(conn -> {
             try (PreparedStatement pstmt = conn.prepareStatement(sql);
                  ResultSet rs = pstmt.executeQuery()) {
                 
+                RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                IdentityMap identities = transactionManager.identityMap();
                 while (rs.next()) {
-                    roles.add(map(rs));
+                    roles.add(resolve(row, identities));
                 }
                 return roles;
             } catch (SQLException e) {
@@ -82,6 +111,77 @@ public class RoleDaoJdbc implements RoleDao {
         });
     }
     
+    @Override
+    public Map<String, Role> findAllByIds(Collection<String> ids) {
+        Map<String, Role> roles = new HashMap<>();
+        List<List<String>> chunks = InClause.chunks(ids);
+        if (chunks.isEmpty()) {
+            return roles;
+        }
+        
+        return transactionManager.executeReadOnly(conn -> {
+            // Only the roles not yet materialized in this unit of work are queried
+            IdentityMap identities = transactionManager.identityMap();
+            for (List<String> chunk : InClause.chunks(identities.getAll(Role.class, ids, roles))) {
+                String sql = SELECT + "WHERE id IN " + InClause.placeholders(chunk.size());
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setString(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    
+                    RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                    while (rs.next()) {
+                        Role role = resolve(row, identities);
+                        roles.put(role.getId(), role);
+                    }
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error finding roles by IDs", e);
+                }
+            }
+            return roles;
+        });
+    }
+    
+    @Override
+    public List<LeaderboardEntry<Role>> findTopByApplicantCount(int limit) {
+        List<LeaderboardEntry<Role>> leaderboard = new ArrayList<>();
+        String sql = """
+            SELECT ro.id, ro.title, ro.description, ro.department, COUNT(a.applicant_id) AS applicant_count
+            FROM roles ro
+            JOIN recruitments r ON r.role_id = ro.id
+            LEFT JOIN applications a ON a.recruitment_id = r.id
+            GROUP BY ro.id
+            ORDER BY applicant_count DESC, ro.id ASC
+            LIMIT ?
+            """;
+        
+        return transactionManager.executeReadOnly(conn -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                pstmt.setInt(1, limit);
+                ResultSet rs = pstmt.executeQuery();
+                
+                RowDecoder row = new RowDecoder(rs, "", COLUMNS);
+                IdentityMap identities = transactionManager.identityMap();
+                int countColumn = rs.findColumn("applicant_count");
+                int rank = 0;
+                int previousCount = -1;
+                while (rs.next()) {
+                    int count = rs.getInt(countColumn);
+                    // Ties share a rank, the next count skips the places they took
+                    if (count != previousCount) {
+                        rank = leaderboard.size() + 1;
+                        previousCount = count;
+                    }
+                    leaderboard.add(new LeaderboardEntry<>(rank, resolve(row, identities), count));
+                }
+                return leaderboard;
+            } catch (SQLException e) {
+                throw new DataAccessException("Error ranking roles by applicant count", e);
+            }
+        });
+    }
+    
     @Override
     public void insert(Role role) {
         String sql = "INSERT INTO roles (title, description, department) VALUES (?, ?, ?)";
@@ -100,6 +200,8 @@ public class RoleDaoJdbc implements RoleDao {
                 try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
                     if (generatedKeys.next()) {
                         role.setId(generatedKeys.getString(1));
+                        transactionManager.identityMap().put(Role.class, role.getId(), role);
+                        transactionManager.notifyChanged(Role.class, role.getId());
                     } else {
                         throw new DataAccessException("Creating role failed, no ID obtained");
                     }
@@ -128,6 +230,8 @@ public class RoleDaoJdbc implements RoleDao {
                     throw new DataAccessException("Updating role failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().put(Role.class, role.getId(), role);
+                transactionManager.notifyChanged(Role.class, role.getId());
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error updating role: " + role.getTitle(), e);
@@ -148,6 +252,8 @@ public class RoleDaoJdbc implements RoleDao {
                     throw new DataAccessException("Deleting role failed, no rows affected");
                 }
                 
+                transactionManager.identityMap().remove(Role.class, id);
+                transactionManager.notifyChanged(Role.class, id);
                 return null;
             } catch (SQLException e) {
                 throw new DataAccessException("Error deleting role with ID: " + id, e);
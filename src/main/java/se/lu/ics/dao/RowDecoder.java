@@ -0,0 +1,252 @@
+package se.lu.ics.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+
+/**
+ * Reads the columns of one entity from a result set by index.
+ * The labels are resolved to column indexes once, when the decoder is created for a result set,
+ * so mapping a row costs no label lookups. Dates, times and enums are parsed straight from the
+ * column text without intermediate strings or exceptions; a value that cannot be read decodes to null.
+ *
+ * Recognised date and time formats:
+ * ISO dates "2025-05-21", ISO date-times with a space or 'T' and optional seconds and fraction
+ * ("2025-05-21 10:30", "2025-05-21T10:30:00.123"), and epoch milliseconds ("1747778400000"),
+ * which is what the JDBC driver stores for setDate and setTimestamp.
+ */
+final class RowDecoder {
+    
+    private final ResultSet rs;
+    private final int[] indexes;
+    
+    /**
+     * Constructor that resolves the column labels of a result set
+     * @param rs The result set to read from
+     * @param prefix The prefix of the column labels, empty if the columns are not aliased
+     * @param labels The column labels, without prefix; callers read them by their position in this array
+     * @throws SQLException If a label is not in the result set
+     */
+    RowDecoder(ResultSet rs, String prefix, String[] labels) throws SQLException {
+        this.rs = rs;
+        this.indexes = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            indexes[i] = rs.findColumn(prefix + labels[i]);
+        }
+    }
+    
+    /**
+     * @return The result set this decoder reads from
+     */
+    ResultSet getResultSet() {
+        return rs;
+    }
+    
+    String getString(int column) throws SQLException {
+        return rs.getString(indexes[column]);
+    }
+    
+    int getInt(int column) throws SQLException {
+        return rs.getInt(indexes[column]);
+    }
+    
+    /**
+     * Read a date column
+     * @param column The position of the column label
+     * @return The date, or null if the value is null or not in a recognised format
+     * @throws SQLException If a database access error occurs
+     */
+    LocalDate getDate(int column) throws SQLException {
+        return parseDate(rs.getString(indexes[column]));
+    }
+    
+    /**
+     * Read a date-time column
+     * @param column The position of the column label
+     * @return The date-time, or null if the value is null or not in a recognised format
+     * @throws SQLException If a database access error occurs
+     */
+    LocalDateTime getDateTime(int column) throws SQLException {
+        return parseDateTime(rs.getString(indexes[column]));
+    }
+    
+    /**
+     * Read an enum column by constant name, ignoring case and treating spaces as underscores
+     * @param <E> The enum type
+     * @param column The position of the column label
+     * @param constants The enum constants, as returned by values()
+     * @return The matching constant, or null if the value is null or matches none
+     * @throws SQLException If a database access error occurs
+     */
+    <E extends Enum<E>> E getEnum(int column, E[] constants) throws SQLException {
+        return parseEnum(rs.getString(indexes[column]), constants);
+    }
+    
+    // ========== Parsers ==========
+    
+    /**
+     * Parse a date, ignoring any time part
+     * @param text ISO date or date-time, or epoch milliseconds
+     * @return The date, or null if the text is null or not in a recognised format
+     */
+    static LocalDate parseDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (isIsoDate(text)) {
+            return LocalDate.of(digits(text, 0, 4), digits(text, 5, 7), digits(text, 8, 10));
+        }
+        if (isEpochMillis(text)) {
+            return Instant.ofEpochMilli(Long.parseLong(text)).atZone(ZoneId.systemDefault()).toLocalDate();
+        }
+        return null;
+    }
+    
+    /**
+     * Parse a date-time; a date without time is taken as the start of the day
+     * @param text ISO date or date-time, or epoch milliseconds
+     * @return The date-time, or null if the text is null or not in a recognised format
+     */
+    static LocalDateTime parseDateTime(String text) {
+        if (text == null) {
+            return null;
+        }
+        if (!isIsoDate(text)) {
+            if (isEpochMillis(text)) {
+                return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(text)), ZoneId.systemDefault());
+            }
+            return null;
+        }
+        
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        int length = text.length();
+        if (length == 10) {
+            return LocalDateTime.of(year, month, day, 0, 0);
+        }
+        
+        // "yyyy-MM-dd HH:mm" with optional ":ss" and ".fraction"
+        char separator = text.charAt(10);
+        if ((separator != ' ' && separator != 'T') || length < 16
+                || !isDigits(text, 11, 13) || text.charAt(13) != ':' || !isDigits(text, 14, 16)) {
+            return null;
+        }
+        int hour = digits(text, 11, 13);
+        int minute = digits(text, 14, 16);
+        int second = 0;
+        int nanos = 0;
+        if (length >= 19 && text.charAt(16) == ':' && isDigits(text, 17, 19)) {
+            second = digits(text, 17, 19);
+            if (length > 20 && text.charAt(19) == '.') {
+                int end = 20;
+                while (end < length && end < 29 && isDigits(text, end, end + 1)) {
+                    end++;
+                }
+                nanos = digits(text, 20, end);
+                for (int i = end - 20; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        if (hour > 23 || minute > 59 || second > 59) {
+            return null;
+        }
+        return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+    }
+    
+    /**
+     * Find the enum constant a text names, ignoring case and treating spaces as underscores
+     * @param <E> The enum type
+     * @param text The text to match
+     * @param constants The enum constants, as returned by values()
+     * @return The matching constant, or null if the text is null or matches none
+     */
+    static <E extends Enum<E>> E parseEnum(String text, E[] constants) {
+        if (text == null) {
+            return null;
+        }
+        for (E constant : constants) {
+            if (nameEquals(text, constant.name())) {
+                return constant;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Compare a text with a constant name, ignoring case and treating spaces as underscores
+     * @param text The text to compare
+     * @param name The upper case constant name
+     * @return true if they match
+     */
+    static boolean nameEquals(String text, String name) {
+        int length = text.length();
+        if (length != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                c = '_';
+            }
+            if (Character.toUpperCase(c) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /** Whether the text starts with a valid "yyyy-MM-dd" date */
+    private static boolean isIsoDate(String text) {
+        if (text.length() < 10 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || !isDigits(text, 0, 4) || !isDigits(text, 5, 7) || !isDigits(text, 8, 10)) {
+            return false;
+        }
+        int month = digits(text, 5, 7);
+        int day = digits(text, 8, 10);
+        return month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(digits(text, 0, 4), month);
+    }
+    
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4: case 6: case 9: case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+    
+    /**
+     * Whether the text is epoch milliseconds: only digits, 11 to 13 of them, i.e. from April 1970 to the year 2286.
+     * Shorter numbers such as "2025" or "20250521" are not taken for times in early 1970.
+     */
+    private static boolean isEpochMillis(String text) {
+        int length = text.length();
+        return length >= 11 && length <= 13 && isDigits(text, 0, length);
+    }
+    
+    private static boolean isDigits(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+}
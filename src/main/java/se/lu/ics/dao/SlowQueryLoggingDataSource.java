@@ -0,0 +1,379 @@
+package se.lu.ics.dao;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * DataSource wrapper that times every statement and logs the slow ones.
+ * A statement is slow when executing it plus fetching its rows takes longer than the threshold.
+ * The log entry holds the SQL, the bound parameters and SQLite's EXPLAIN QUERY PLAN output,
+ * so full table scans show up as "SCAN &lt;table&gt;" lines. Entries go to the
+ * {@code se.lu.ics.dao.SlowQueryLog} {@link System.Logger} at WARNING level.
+ * Bound parameters are only copied when a statement turns out to be slow, or when they are rebound
+ * while its result set is still being read.
+ */
+public class SlowQueryLoggingDataSource implements DataSource {
+    
+    /** Default threshold above which a statement is logged */
+    public static final long DEFAULT_THRESHOLD_MILLIS = 100;
+    
+    private static final System.Logger LOG = System.getLogger("se.lu.ics.dao.SlowQueryLog");
+    private static final int MAX_PARAMETER_LENGTH = 100;
+    
+    private final DataSource delegate;
+    private volatile long thresholdNanos;
+    private final LongAdder slowStatements = new LongAdder();
+    
+    /**
+     * Constructor that takes the datasource to wrap and the default threshold
+     * @param delegate The datasource to wrap
+     */
+    public SlowQueryLoggingDataSource(DataSource delegate) {
+        this(delegate, DEFAULT_THRESHOLD_MILLIS);
+    }
+    
+    /**
+     * Constructor that takes the datasource to wrap and the threshold
+     * @param delegate The datasource to wrap
+     * @param thresholdMillis Statements taking longer than this are logged
+     */
+    public SlowQueryLoggingDataSource(DataSource delegate, long thresholdMillis) {
+        this.delegate = delegate;
+        setThresholdMillis(thresholdMillis);
+    }
+    
+    /**
+     * Set the threshold above which a statement is logged
+     * @param thresholdMillis The threshold in milliseconds
+     */
+    public void setThresholdMillis(long thresholdMillis) {
+        this.thresholdNanos = thresholdMillis * 1_000_000;
+    }
+    
+    /**
+     * @return The threshold above which a statement is logged, in milliseconds
+     */
+    public long getThresholdMillis() {
+        return thresholdNanos / 1_000_000;
+    }
+    
+    /**
+     * @return The number of slow statements logged
+     */
+    public long getSlowStatementCount() {
+        return slowStatements.sum();
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(delegate.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(delegate.getConnection(username, password));
+    }
+    
+    private Connection wrap(Connection physical) {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new ConnectionHandler(physical));
+    }
+    
+    /**
+     * Log a statement if it took longer than the threshold
+     * @param physical The connection the statement ran on, used to explain it
+     * @param sql The SQL text
+     * @param parameters The bound parameters, by index starting at 1; only read if the statement was slow
+     * @param nanos Time spent executing and fetching
+     */
+    private void finished(Connection physical, String sql, List<Object> parameters, long nanos) {
+        if (nanos < thresholdNanos || sql == null) {
+            return;
+        }
+        slowStatements.increment();
+        if (LOG.isLoggable(System.Logger.Level.WARNING)) {
+            LOG.log(System.Logger.Level.WARNING, String.format(Locale.ROOT,
+                    "Slow statement (%.1f ms): %s%n  parameters: %s%n  plan: %s",
+                    nanos / 1_000_000.0, sql, formatParameters(parameters), explain(physical, sql, parameters)));
+        }
+    }
+    
+    /**
+     * Run EXPLAIN QUERY PLAN for a statement with the same parameters
+     * @param physical The connection to explain on
+     * @param sql The SQL text
+     * @param parameters The bound parameters
+     * @return The plan, one line per step, or why there is none
+     */
+    private static String explain(Connection physical, String sql, List<Object> parameters) {
+        String keyword = sql.stripLeading().split("\\s", 2)[0].toUpperCase(Locale.ROOT);
+        if (!List.of("SELECT", "WITH", "INSERT", "UPDATE", "DELETE", "REPLACE").contains(keyword)) {
+            return "n/a";
+        }
+        
+        try (PreparedStatement pstmt = physical.prepareStatement("EXPLAIN QUERY PLAN " + sql)) {
+            for (int i = 1; i < parameters.size(); i++) {
+                pstmt.setObject(i, parameters.get(i));
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(System.lineSeparator()).append("    ").append(rs.getString("detail"));
+                }
+            }
+            return plan.length() == 0 ? "empty" : plan.toString();
+        } catch (SQLException e) {
+            return "unavailable (" + e.getMessage() + ")";
+        }
+    }
+    
+    private static String formatParameters(List<Object> parameters) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 1; i < parameters.size(); i++) {
+            if (i > 1) {
+                text.append(", ");
+            }
+            Object value = parameters.get(i);
+            if (value instanceof String) {
+                String s = (String) value;
+                if (s.length() > MAX_PARAMETER_LENGTH) {
+                    s = s.substring(0, MAX_PARAMETER_LENGTH) + "...";
+                }
+                text.append('\'').append(s).append('\'');
+            } else if (value instanceof byte[]) {
+                text.append("<").append(((byte[]) value).length).append(" bytes>");
+            } else {
+                text.append(value);
+            }
+        }
+        return text.append(']').toString();
+    }
+    
+    /**
+     * Invocation handler behind the connections: wraps the statements they create
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection physical;
+        
+        ConnectionHandler(Connection physical) {
+            this.physical = physical;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result;
+            try {
+                result = method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return wrapStatement((Statement) result, PreparedStatement.class, (String) args[0]);
+                case "createStatement":
+                    return wrapStatement((Statement) result, Statement.class, null);
+                default:
+                    return result;
+            }
+        }
+        
+        private Object wrapStatement(Statement statement, Class<?> type, String sql) {
+            return Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                new StatementHandler(statement, physical, sql));
+        }
+    }
+    
+    /**
+     * Invocation handler behind the statements: tracks bound parameters and times executions
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Connection physical;
+        private final String preparedSql;
+        private final List<Object> parameters = new ArrayList<>();
+        private ResultSetHandler openResultSet;
+        
+        StatementHandler(Statement statement, Connection physical, String preparedSql) {
+            this.statement = statement;
+            this.physical = physical;
+            this.preparedSql = preparedSql;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                detachResultSet();
+                bind((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+            } else if ("clearParameters".equals(name)) {
+                detachResultSet();
+                parameters.clear();
+            }
+            
+            if (!name.startsWith("execute")) {
+                try {
+                    return method.invoke(statement, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+            
+            // A plain statement gets its SQL with each execution
+            String sql = preparedSql != null ? preparedSql
+                       : (args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null);
+            // Not copied: the parameters only change through this handler, which detaches an open result set first
+            List<Object> bound = preparedSql != null ? parameters : List.of();
+            openResultSet = null;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                finished(physical, sql, bound, System.nanoTime() - start);
+                throw e.getCause();
+            }
+            long elapsed = System.nanoTime() - start;
+            
+            if (result instanceof ResultSet) {
+                // Rows are fetched lazily, so the statement is finished when its result set is
+                ResultSetHandler handler = new ResultSetHandler((ResultSet) result, physical, sql, bound, elapsed);
+                openResultSet = preparedSql != null ? handler : null;
+                return Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[] { ResultSet.class },
+                    handler);
+            }
+            finished(physical, sql, bound, elapsed);
+            return result;
+        }
+        
+        /**
+         * Give a result set that is still being read its own copy of the parameters before they change
+         */
+        private void detachResultSet() {
+            if (openResultSet != null) {
+                if (!openResultSet.done) {
+                    openResultSet.parameters = new ArrayList<>(parameters);
+                }
+                openResultSet = null;
+            }
+        }
+        
+        private void bind(int index, Object value) {
+            while (parameters.size() <= index) {
+                parameters.add(null);
+            }
+            parameters.set(index, value);
+        }
+    }
+    
+    /**
+     * Invocation handler behind result sets: adds the time spent fetching rows
+     */
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final Connection physical;
+        private final String sql;
+        private List<Object> parameters;
+        private long elapsed;
+        private boolean done;
+        
+        ResultSetHandler(ResultSet resultSet, Connection physical, String sql, List<Object> parameters, long elapsed) {
+            this.resultSet = resultSet;
+            this.physical = physical;
+            this.sql = sql;
+            this.parameters = parameters;
+            this.elapsed = elapsed;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("next".equals(name)) {
+                long start = System.nanoTime();
+                boolean hasRow = resultSet.next();
+                elapsed += System.nanoTime() - start;
+                if (!hasRow) {
+                    done();
+                }
+                return hasRow;
+            }
+            if ("close".equals(name)) {
+                done();
+            }
+            try {
+                return method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        
+        private void done() {
+            if (!done) {
+                done = true;
+                finished(physical, sql, parameters, elapsed);
+            }
+        }
+    }
+    
+    // ========== Delegated DataSource methods ==========
+    
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return delegate.getLogWriter();
+    }
+    
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        delegate.setLogWriter(out);
+    }
+    
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        delegate.setLoginTimeout(seconds);
+    }
+    
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return delegate.getLoginTimeout();
+    }
+    
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return delegate.getParentLogger();
+    }
+    
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return delegate.unwrap(iface);
+    }
+    
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || delegate.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,242 @@
+package se.lu.ics.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of prepared statements for one physical connection, keyed by SQL text.
+ * A cached statement is handed out as a wrapper whose close() only resets it (closes its result set
+ * and clears its parameters), so the next prepareStatement with the same SQL skips parsing and planning.
+ * The cache is bounded; the least recently used statement is closed when it is full.
+ * Like the connection it belongs to, a cache is only used by one thread at a time.
+ */
+public class StatementCache {
+    
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, CachedStatement> statements;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    
+    /**
+     * Constructor that takes the connection to prepare statements on and the counters to update
+     * @param physical The physical connection
+     * @param maxSize The maximum number of statements to keep
+     * @param hits Counter of statements served from the cache
+     * @param misses Counter of statements that had to be prepared
+     * @param evictions Counter of statements closed to make room
+     */
+    public StatementCache(Connection physical, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    StatementCache.this.evictions.increment();
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+    
+    /**
+     * Get a prepared statement for the SQL, reusing a cached one if it is free
+     * @param connection The connection the statement should report as its owner
+     * @param sql The SQL text
+     * @param counter Counter of executions and rows read, or null to not count
+     * @return A prepared statement; closing it returns it to the cache
+     * @throws SQLException If the statement could not be prepared
+     */
+    public PreparedStatement prepare(Connection connection, String sql, StatementCounter counter) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.handler == null) {
+            hits.increment();
+            return cached.checkOut(connection, counter);
+        }
+        
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (cached != null) {
+            // The cached statement is still open further up the call stack, so this one is not cached
+            return counter != null ? counter.wrap(statement, PreparedStatement.class) : statement;
+        }
+        
+        cached = new CachedStatement(sql, statement);
+        statements.put(sql, cached);
+        return cached.checkOut(connection, counter);
+    }
+    
+    /**
+     * Reset every statement a caller left open, e.g. when the connection goes back to the pool
+     */
+    public void resetAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.handler != null) {
+                cached.handler.close();
+            }
+        }
+    }
+    
+    /**
+     * Close all cached statements
+     */
+    public void closeAll() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement cached : all) {
+            cached.evict();
+        }
+    }
+    
+    /**
+     * @return The number of statements currently cached
+     */
+    public int size() {
+        return statements.size();
+    }
+    
+    /**
+     * A physical prepared statement kept in the cache
+     */
+    private final class CachedStatement {
+        private final String sql;
+        private final PreparedStatement statement;
+        private CachedStatementHandler handler;
+        private boolean evicted;
+        
+        CachedStatement(String sql, PreparedStatement statement) {
+            this.sql = sql;
+            this.statement = statement;
+        }
+        
+        /**
+         * Hand the statement out wrapped, so that closing it returns it to the cache
+         */
+        PreparedStatement checkOut(Connection connection, StatementCounter counter) {
+            handler = new CachedStatementHandler(this, connection, counter);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                handler);
+        }
+        
+        /**
+         * Called when the caller closes the wrapper: reset the statement for the next caller
+         */
+        void checkIn(ResultSet resultSet) {
+            handler = null;
+            try {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                // A statement that cannot be reset is not reused
+                statements.remove(sql, this);
+                evicted = true;
+            }
+            if (evicted) {
+                closeStatement();
+            }
+        }
+        
+        /**
+         * Remove the statement from use; it is closed now, or when its current user closes it
+         */
+        void evict() {
+            evicted = true;
+            if (handler == null) {
+                closeStatement();
+            }
+        }
+        
+        private void closeStatement() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("Failed to close cached statement: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Invocation handler behind a checked-out cached statement.
+     * Delegates to the physical statement until the caller closes it.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection connection;
+        private final StatementCounter counter;
+        private ResultSet resultSet;
+        private boolean closed;
+        
+        CachedStatementHandler(CachedStatement cached, Connection connection, StatementCounter counter) {
+            this.cached = cached;
+            this.connection = connection;
+            this.counter = counter;
+        }
+        
+        void close() {
+            if (!closed) {
+                closed = true;
+                cached.checkIn(resultSet);
+                resultSet = null;
+            }
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed;
+                case "getConnection":
+                    return connection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached[" + cached.sql + "]";
+                default:
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    if (counter != null && StatementCounter.isExecution(method.getName())) {
+                        counter.statementExecuted();
+                    }
+                    try {
+                        Object result = method.invoke(cached.statement, args);
+                        if (result instanceof ResultSet && "executeQuery".equals(method.getName())) {
+                            resultSet = (ResultSet) result;
+                            return counter != null ? counter.wrap(resultSet) : resultSet;
+                        }
+                        return result;
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
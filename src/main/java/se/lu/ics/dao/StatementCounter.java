@@ -0,0 +1,128 @@
+package se.lu.ics.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Counts the statements executed and the rows read on one checked-out connection.
+ * The pool wraps the statements and result sets it hands out so that every execution and every
+ * fetched row is counted; the transaction manager reads the counts when a transaction ends.
+ * Like the connection it belongs to, a counter is only used by one thread at a time.
+ */
+public class StatementCounter {
+    
+    private long statements;
+    private long rowsRead;
+    
+    /**
+     * @return The number of statements executed
+     */
+    public long getStatements() {
+        return statements;
+    }
+    
+    /**
+     * @return The number of rows read from result sets
+     */
+    public long getRowsRead() {
+        return rowsRead;
+    }
+    
+    /**
+     * Check whether a statement method executes SQL
+     * @param methodName The name of the method
+     * @return true for execute, executeQuery, executeUpdate, executeBatch and their variants
+     */
+    static boolean isExecution(String methodName) {
+        return methodName.startsWith("execute");
+    }
+    
+    void statementExecuted() {
+        statements++;
+    }
+    
+    /**
+     * Wrap a statement so that its executions and the rows it returns are counted
+     * @param <T> The statement type
+     * @param statement The statement to wrap
+     * @param type The statement interface to expose
+     * @return The counting statement
+     */
+    <T extends Statement> T wrap(T statement, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(
+            type.getClassLoader(),
+            new Class<?>[] { type },
+            new CountingStatementHandler(statement)));
+    }
+    
+    /**
+     * Wrap a result set so that the rows fetched from it are counted
+     * @param resultSet The result set to wrap
+     * @return The counting result set
+     */
+    ResultSet wrap(ResultSet resultSet) {
+        return (ResultSet) Proxy.newProxyInstance(
+            ResultSet.class.getClassLoader(),
+            new Class<?>[] { ResultSet.class },
+            new CountingResultSetHandler(resultSet));
+    }
+    
+    /**
+     * Invocation handler that counts executions and wraps returned result sets
+     */
+    private final class CountingStatementHandler implements InvocationHandler {
+        private final Statement statement;
+        
+        CountingStatementHandler(Statement statement) {
+            this.statement = statement;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (isExecution(name)) {
+                statementExecuted();
+            }
+            try {
+                Object result = method.invoke(statement, args);
+                if (result instanceof ResultSet && ("executeQuery".equals(name) || "getResultSet".equals(name))) {
+                    return wrap((ResultSet) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    /**
+     * Invocation handler that counts the rows a result set moves to
+     */
+    private final class CountingResultSetHandler implements InvocationHandler {
+        private final ResultSet resultSet;
+        
+        CountingResultSetHandler(ResultSet resultSet) {
+            this.resultSet = resultSet;
+        }
+        
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("next".equals(method.getName())) {
+                boolean hasRow = resultSet.next();
+                if (hasRow) {
+                    rowsRead++;
+                }
+                return hasRow;
+            }
+            try {
+                return method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
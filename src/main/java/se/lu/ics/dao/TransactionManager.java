@@ -2,7 +2,16 @@ package se.lu.ics.dao;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
@@ -12,74 +21,630 @@ import se.lu.ics.exception.DataAccessException;
  * Manages database transactions to ensure atomicity of operations.
  * Provides methods to execute multiple database operations within a single transaction.
  * Supports nested transactions by reusing the same connection for nested calls.
+ * A nested write call runs in its own SAVEPOINT, so if it fails only its own work is rolled back
+ * and the caller can handle or retry it without giving up the outer transaction.
+ * Connections are taken from bounded {@link ConnectionPool}s and kept open between transactions:
+ * one pool for write transactions and a separate pool of reader connections for read-only work.
+ * Optionally all write transactions are funnelled through a {@link WriteQueue} and executed
+ * one at a time on a single writer thread, optionally with group commit so that writes arriving
+ * close together share one commit.
+ * A transaction that fails because SQLite reports the database as busy or locked is rolled back and
+ * retried according to a {@link RetryPolicy}, and the contention is recorded in {@link ContentionStats}.
+ * The async variants run the same transactions on virtual threads and return a {@link CompletableFuture}.
+ * With metrics enabled, every transaction is timed and its statements and rows are counted in
+ * {@link TransactionMetrics}, tagged with the service method that started it and published through JMX.
+ * Metrics are off by default, since counting wraps every statement and result set in a proxy.
  */
-public class TransactionManager {
+public class TransactionManager implements AutoCloseable {
     
-    private final DataSource dataSource;
-    private final ThreadLocal<Connection> currentConnection = new ThreadLocal<>();
-    private final ThreadLocal<Integer> transactionLevel = new ThreadLocal<>();
+    /**
+     * Default number of pooled writer connections.
+     * SQLite allows a single writer at a time, so more writer connections only add lock contention.
+     */
+    public static final int DEFAULT_POOL_SIZE = 1;
+    
+    /** Default number of pooled reader connections */
+    public static final int DEFAULT_READER_POOL_SIZE = 4;
+    
+    /** Default time to wait for a free pooled connection */
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 30_000;
+    
+    /** Default time the writer waits for more writes to share a group commit */
+    public static final long DEFAULT_GROUP_COMMIT_WINDOW_MILLIS = 2;
+    
+    /** Default maximum number of writes sharing a group commit */
+    public static final int DEFAULT_GROUP_COMMIT_MAX_BATCH = 64;
+    
+    /** SQLite primary result codes for a database held by another connection */
+    private static final int SQLITE_BUSY = 5;
+    private static final int SQLITE_LOCKED = 6;
+    
+    /** Tag of the shared transactions of group commit */
+    private static final String GROUP_COMMIT_TAG = "WriteQueue.groupCommit";
+    
+    private final ConnectionPool connectionPool;
+    private final ConnectionPool readerPool;
+    private final ThreadLocal<Transaction> currentTransaction = new ThreadLocal<>();
+    private volatile WriteQueue writeQueue;
+    private volatile RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+    private final ContentionStats contentionStats = new ContentionStats();
+    private final ExecutorService asyncExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final TransactionMetrics metrics = new TransactionMetrics();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong dataVersion = new AtomicLong();
+    private volatile CommitObserver commitObserver;
+    
+    /**
+     * Receives the entity changes reported with {@link #notifyChanged(Class, String)}, e.g. to drop cached copies
+     */
+    public interface ChangeListener {
+        /**
+         * Called when an entity was written or deleted
+         * @param type The entity class, or null if anything in the database may have changed
+         * @param id The entity ID, or null if any entity of the type may have changed
+         */
+        void changed(Class<?> type, String id);
+    }
+    
+    /**
+     * Watches the commits of write transactions on the connection being committed,
+     * e.g. to tell the commits of this process from those of other processes
+     */
+    public interface CommitObserver {
+        /**
+         * Called on the committing thread just before a write transaction commits
+         * @param conn The connection of the transaction
+         * @return State handed to {@link #afterCommit(Connection, long)}
+         */
+        long beforeCommit(Connection conn);
+        
+        /**
+         * Called on the committing thread right after the commit, whether it succeeded or not,
+         * while the transaction still holds the connection
+         * @param conn The connection of the transaction
+         * @param state What beforeCommit returned
+         */
+        void afterCommit(Connection conn, long state);
+    }
     
     /**
      * Constructor that takes a datasource
      * @param dataSource The datasource to get connections from
      */
     public TransactionManager(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(dataSource, DEFAULT_POOL_SIZE);
+    }
+    
+    /**
+     * Constructor that takes a datasource and the size of the connection pool
+     * @param dataSource The datasource to get connections from
+     * @param poolSize The maximum number of writer connections in use at the same time
+     */
+    public TransactionManager(DataSource dataSource, int poolSize) {
+        this(dataSource, dataSource, poolSize, DEFAULT_READER_POOL_SIZE);
+    }
+    
+    /**
+     * Constructor that takes separate datasources for writers and readers
+     * @param dataSource The datasource to get writer connections from
+     * @param readerDataSource The datasource to get reader connections from
+     */
+    public TransactionManager(DataSource dataSource, DataSource readerDataSource) {
+        this(dataSource, readerDataSource, DEFAULT_POOL_SIZE, DEFAULT_READER_POOL_SIZE);
+    }
+    
+    /**
+     * Constructor that takes separate datasources and pool sizes for writers and readers
+     * @param dataSource The datasource to get writer connections from
+     * @param readerDataSource The datasource to get reader connections from
+     * @param poolSize The maximum number of writer connections in use at the same time
+     * @param readerPoolSize The maximum number of reader connections in use at the same time
+     */
+    public TransactionManager(DataSource dataSource, DataSource readerDataSource,
+                              int poolSize, int readerPoolSize) {
+        this.connectionPool = new ConnectionPool(dataSource, poolSize, DEFAULT_MAX_WAIT_MILLIS);
+        this.readerPool = new ConnectionPool(readerDataSource, readerPoolSize, DEFAULT_MAX_WAIT_MILLIS);
+    }
+    
+    /**
+     * Get the pool of writer connections, e.g. to inspect its statistics
+     * @return The writer connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+    
+    /**
+     * Get the pool of reader connections used by read-only transactions
+     * @return The reader connection pool
+     */
+    public ConnectionPool getReaderPool() {
+        return readerPool;
+    }
+    
+    /**
+     * Send all write transactions through a single writer thread with a submission queue.
+     * Intended for WAL mode, where readers run in parallel with the one writer.
+     */
+    public synchronized void enableWriteQueue() {
+        if (writeQueue == null) {
+            writeQueue = new WriteQueue("sqlite-writer");
+        }
+    }
+    
+    /**
+     * Let write transactions submitted within a short window share one commit, using the default window and batch size.
+     * The write queue is enabled if it is not already.
+     */
+    public void enableGroupCommit() {
+        enableGroupCommit(DEFAULT_GROUP_COMMIT_WINDOW_MILLIS, DEFAULT_GROUP_COMMIT_MAX_BATCH);
+    }
+    
+    /**
+     * Let write transactions submitted within a short window share one commit.
+     * Each write runs in its own savepoint, so a failing write is rolled back alone and only its caller
+     * gets the error; the others get their results once the shared commit succeeds. A busy or locked
+     * database is not one write's failure: the whole group is rolled back and retried under the retry policy.
+     * The write queue is enabled if it is not already.
+     * @param windowMillis How long the writer waits for more writes after the first one arrives
+     * @param maxBatchSize The maximum number of writes sharing a commit
+     */
+    public synchronized void enableGroupCommit(long windowMillis, int maxBatchSize) {
+        enableWriteQueue();
+        writeQueue.enableGroupCommit(windowMillis, maxBatchSize, new WriteQueue.GroupCommitter() {
+            @Override
+            public void inTransaction(Runnable body) {
+                execute(conn -> {
+                    body.run();
+                    return null;
+                }, false, GROUP_COMMIT_TAG);
+            }
+            
+            @Override
+            public <R> R inNestedScope(Supplier<R> write) {
+                // Queued writes are nested executeInTransaction calls, which already run in their own savepoint.
+                // Each is its own unit of work, so it gets its own identity map: callers never share objects.
+                Transaction tx = currentTransaction.get();
+                IdentityMap shared = tx.identities;
+                tx.identities = null;
+                try {
+                    return write.get();
+                } finally {
+                    tx.identities = shared;
+                }
+            }
+        });
+    }
+    
+    /**
+     * Get the write queue, e.g. to inspect its statistics
+     * @return The write queue, or null if writes run on the calling thread
+     */
+    public WriteQueue getWriteQueue() {
+        return writeQueue;
+    }
+    
+    /**
+     * Set how transactions are retried when the database is busy or locked
+     * @param retryPolicy The retry policy, or {@link RetryPolicy#NONE} to fail at once
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+    }
+    
+    /**
+     * Get the policy for retrying transactions when the database is busy or locked
+     * @return The retry policy
+     */
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+    
+    /**
+     * Get statistics on how often and how long transactions waited for the database lock
+     * @return The contention statistics
+     */
+    public ContentionStats getContentionStats() {
+        return contentionStats;
+    }
+    
+    /**
+     * Get the per-method transaction statistics that are published through JMX
+     * @return The transaction metrics
+     */
+    public TransactionMetrics getMetrics() {
+        return metrics;
+    }
+    
+    /**
+     * Turn transaction timing, caller tagging and statement counting on or off; they are off by default
+     * @param enabled Whether transactions should be instrumented
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        metrics.setEnabled(enabled);
+        connectionPool.setStatementCounting(enabled);
+        readerPool.setStatementCounting(enabled);
+    }
+    
+    /**
+     * Check whether no write transaction is running or waiting
+     * @return true if the writer is idle
+     */
+    public boolean isWriterIdle() {
+        WriteQueue queue = writeQueue;
+        if (queue != null) {
+            return queue.isIdle();
+        }
+        return connectionPool.getActiveCount() == 0;
     }
     
     /**
-     * Get a connection from the datasource or reuse existing one if in a transaction
+     * Get a pooled connection or reuse existing one if in a transaction.
+     * A connection obtained outside a transaction must be closed to return it to the pool.
      * @return A database connection
      * @throws DataAccessException If a database access error occurs
      */
     public Connection getConnection() {
-        Connection conn = currentConnection.get();
-        if (conn != null) {
-            return conn; // Return the existing connection for this thread
+        Transaction tx = currentTransaction.get();
+        if (tx != null) {
+            return tx.connection; // Return the existing connection for this thread
         }
         
-        try {
-            return dataSource.getConnection();
-        } catch (SQLException e) {
-            throw new DataAccessException("Failed to get database connection", e);
-        }
+        return connectionPool.acquire();
     }
     
     /**
-     * Execute a function within a transaction
+     * Execute a function within a transaction.
+     * Called inside another write transaction, the function runs in a savepoint: if it throws, only
+     * its own changes are rolled back and the exception is passed on, leaving the outer transaction usable.
      * @param <R> The return type of the function
      * @param operation The function to execute
      * @return The result of the function
      * @throws DataAccessException If a database access error occurs
      */
     public <R> R executeInTransaction(Function<Connection, R> operation) {
+        Transaction tx = currentTransaction.get();
+        if (tx != null && tx.readOnly) {
+            throw new DataAccessException("Cannot start a write transaction inside a read-only transaction");
+        }
+        
+        // A new write transaction is handed to the writer thread when the write queue is enabled
+        WriteQueue queue = writeQueue;
+        if (tx == null && queue != null && !queue.isWriterThread()) {
+            // Tag it here, the writer thread's stack no longer shows the caller
+            String tag = metrics.isEnabled() ? TransactionMetrics.callerTag() : null;
+            return queue.submit(() -> execute(operation, false, tag));
+        }
+        return execute(operation, false, null);
+    }
+    
+    /**
+     * Execute a function within a read-only transaction.
+     * Outside any transaction this runs on a reader connection as a deferred transaction, so SQLite
+     * only takes a shared lock and all statements see the same snapshot. Inside an existing transaction
+     * the function simply joins it, so reads still see the caller's uncommitted writes.
+     * @param <R> The return type of the function
+     * @param operation The function to execute; it must not modify the database
+     * @return The result of the function
+     * @throws DataAccessException If a database access error occurs
+     */
+    public <R> R executeReadOnly(Function<Connection, R> operation) {
+        return execute(operation, true, null);
+    }
+    
+    /**
+     * Execute a function within a transaction on a virtual thread.
+     * The transaction is bound to that virtual thread, so the function and any nested calls it makes
+     * share one connection. It never joins a transaction of the calling thread.
+     * @param <R> The return type of the function
+     * @param operation The function to execute
+     * @return A future completed with the result of the function, or completed exceptionally with
+     *         a CompletionException that wraps the DataAccessException it failed with
+     */
+    public <R> CompletableFuture<R> executeInTransactionAsync(Function<Connection, R> operation) {
+        return supplyAsync(() -> executeInTransaction(operation));
+    }
+    
+    /**
+     * Execute a function within a read-only transaction on a virtual thread
+     * @param <R> The return type of the function
+     * @param operation The function to execute; it must not modify the database
+     * @return A future completed with the result of the function, or completed exceptionally with
+     *         a CompletionException that wraps the DataAccessException it failed with
+     */
+    public <R> CompletableFuture<R> executeReadOnlyAsync(Function<Connection, R> operation) {
+        return supplyAsync(() -> executeReadOnly(operation));
+    }
+    
+    /**
+     * Run work that starts its own transactions, such as a service method, on a virtual thread
+     * @param <R> The return type of the work
+     * @param work The work to run
+     * @return A future completed with the result of the work, or completed exceptionally with
+     *         a CompletionException that wraps the exception it failed with
+     */
+    public <R> CompletableFuture<R> supplyAsync(Supplier<R> work) {
+        return CompletableFuture.supplyAsync(work, asyncExecutor);
+    }
+    
+    /**
+     * Run work that starts its own transactions, such as a service method, on a virtual thread
+     * @param work The work to run
+     * @return A future completed when the work is done, or completed exceptionally with
+     *         a CompletionException that wraps the exception it failed with
+     */
+    public CompletableFuture<Void> runAsync(Runnable work) {
+        return CompletableFuture.runAsync(work, asyncExecutor);
+    }
+    
+    /**
+     * Check whether the current thread is inside a transaction, read-only or not
+     * @return true if a transaction is active on this thread
+     */
+    public boolean isInTransaction() {
+        return currentTransaction.get() != null;
+    }
+    
+    /**
+     * Check whether the current thread is inside a transaction that may write
+     * @return true if a write transaction is active on this thread
+     */
+    public boolean isInWriteTransaction() {
+        Transaction tx = currentTransaction.get();
+        return tx != null && !tx.readOnly;
+    }
+    
+    /**
+     * Get the identity map of the current unit of work
+     * @return The map, or null outside a transaction
+     */
+    IdentityMap identityMap() {
+        Transaction tx = currentTransaction.get();
+        return tx != null ? tx.identities() : null;
+    }
+    
+    /**
+     * Forget an entity in the current transaction's identity map.
+     * Needed only after changing or deleting its row with plain SQL instead of through its DAO.
+     * @param type The entity class, e.g. Recruitment.class
+     * @param id The entity ID
+     */
+    public void evict(Class<?> type, String id) {
+        Transaction tx = currentTransaction.get();
+        if (tx != null && tx.identities != null) {
+            tx.identities.remove(type, id);
+        }
+        notifyChanged(type, id);
+    }
+    
+    /**
+     * Forget every entity of a type in the current transaction's identity map,
+     * after plain SQL changed rows whose IDs are not known
+     * @param type The entity class, e.g. Interview.class
+     */
+    public void evictAll(Class<?> type) {
+        Transaction tx = currentTransaction.get();
+        if (tx != null && tx.identities != null) {
+            tx.identities.removeAll(type);
+        }
+        notifyChanged(type, null);
+    }
+    
+    /**
+     * Get the version of the data as seen by this process. It is advanced after every committed write
+     * transaction and every reported change, including commits by other processes detected by a
+     * {@link DataVersionMonitor}. A result computed from the database stays valid as long as the version
+     * read before computing it is still the current one.
+     * @return The data version
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+    
+    /**
+     * Set the observer told about every commit of a write transaction, e.g. a {@link DataVersionMonitor}
+     * @param observer The observer, or null for none
+     */
+    public void setCommitObserver(CommitObserver observer) {
+        this.commitObserver = observer;
+    }
+    
+    /**
+     * @return The observer told about every commit of a write transaction, or null if there is none
+     */
+    public CommitObserver getCommitObserver() {
+        return commitObserver;
+    }
+    
+    /**
+     * Register a listener for entity changes
+     * @param listener The listener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+    
+    /**
+     * Remove a listener for entity changes
+     * @param listener The listener
+     */
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+    
+    /**
+     * Tell the change listeners that an entity was written or deleted.
+     * Inside a transaction they are told at once and again when it ends, so a cache that reloaded
+     * the old row in between, before the commit, drops it once more.
+     * @param type The entity class, or null if anything in the database may have changed
+     * @param id The entity ID, or null if any entity of the type may have changed
+     */
+    public void notifyChanged(Class<?> type, String id) {
+        dataVersion.incrementAndGet();
+        if (changeListeners.isEmpty()) {
+            return;
+        }
+        fireChanged(type, id);
+        if (currentTransaction.get() != null) {
+            afterCompletion(() -> fireChanged(type, id));
+        }
+    }
+    
+    private void fireChanged(Class<?> type, String id) {
+        for (ChangeListener listener : changeListeners) {
+            listener.changed(type, id);
+        }
+    }
+    
+    /**
+     * Run an action once the current transaction has ended, whether it committed or rolled back,
+     * e.g. to drop cached rows it wrote. Outside a transaction the action runs at once.
+     * @param action The action to run on the thread that ends the transaction
+     */
+    public void afterCompletion(Runnable action) {
+        Transaction tx = currentTransaction.get();
+        if (tx == null) {
+            action.run();
+            return;
+        }
+        if (tx.completionActions == null) {
+            tx.completionActions = new ArrayList<>();
+        }
+        tx.completionActions.add(action);
+    }
+    
+    /**
+     * Run an operation in the current transaction or start a new one.
+     * A new transaction is rolled back and retried with backoff while the database is busy or locked.
+     * @param <R> The return type of the function
+     * @param operation The function to execute
+     * @param readOnly Whether a new transaction should be read-only
+     * @param tag The calling method to record a new transaction under, or null to look it up
+     * @return The result of the function
+     */
+    private <R> R execute(Function<Connection, R> operation, boolean readOnly, String tag) {
+        if (currentTransaction.get() != null) {
+            // Only the outermost call retries, since a busy error aborts the whole transaction
+            return executeOnce(operation, readOnly, null);
+        }
+        if (tag == null && metrics.isEnabled()) {
+            tag = TransactionMetrics.callerTag();
+        }
+        
+        RetryPolicy policy = retryPolicy;
+        long start = System.nanoTime();
+        long deadline = start + policy.getDeadlineMillis() * 1_000_000;
+        int failedAttempts = 0;
+        while (true) {
+            try {
+                R result = executeOnce(operation, readOnly, tag);
+                if (failedAttempts > 0) {
+                    contentionStats.recordRecovered(System.nanoTime() - start);
+                }
+                return result;
+            } catch (DataAccessException e) {
+                if (!isBusy(e)) {
+                    throw e;
+                }
+                failedAttempts++;
+                contentionStats.recordBusy(failedAttempts == 1);
+                
+                long backoffMillis = policy.backoffMillis(failedAttempts);
+                if (System.nanoTime() + backoffMillis * 1_000_000 - deadline > 0) {
+                    contentionStats.recordFailed(System.nanoTime() - start);
+                    if (policy.getDeadlineMillis() == 0) {
+                        throw e;
+                    }
+                    throw new DataAccessException("Database still busy after " + failedAttempts +
+                                                  " attempts in " + policy.getDeadlineMillis() + " ms", e);
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    contentionStats.recordFailed(System.nanoTime() - start);
+                    throw new DataAccessException("Interrupted while waiting to retry transaction", e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check whether a failure was caused by SQLite reporting the database as busy or locked
+     * @param e The failure
+     * @return true if the transaction may succeed when retried
+     */
+    static boolean isBusy(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException) {
+                int primaryCode = ((SQLException) cause).getErrorCode() & 0xff;
+                if (primaryCode == SQLITE_BUSY || primaryCode == SQLITE_LOCKED) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Run an operation in the current transaction or start a new one, without retrying
+     * @param <R> The return type of the function
+     * @param operation The function to execute
+     * @param readOnly Whether a new transaction should be read-only
+     * @param tag The calling method to record a new transaction under, or null to not record it
+     * @return The result of the function
+     */
+    private <R> R executeOnce(Function<Connection, R> operation, boolean readOnly, String tag) {
         boolean isOutermostTransaction = false;
-        Connection conn = currentConnection.get();
+        Transaction tx = currentTransaction.get();
+        
+        if (tx != null && !readOnly) {
+            return executeNested(tx, operation);
+        }
         
         // Check if this is the outermost transaction
-        if (conn == null) {
+        if (tx == null) {
+            Connection conn = null;
             try {
-                conn = dataSource.getConnection();
+                long startNanos = System.nanoTime();
+                conn = readOnly ? readerPool.acquire() : connectionPool.acquire();
                 conn.setAutoCommit(false);
-                currentConnection.set(conn);
-                transactionLevel.set(1);
+                tx = new Transaction(conn, readOnly, tag, startNanos);
+                currentTransaction.set(tx);
                 isOutermostTransaction = true;
             } catch (SQLException e) {
                 closeConnection(conn);
                 throw new DataAccessException("Failed to start transaction", e);
             }
         } else {
-            // Nested transaction, increment level
-            transactionLevel.set(transactionLevel.get() + 1);
+            // Nested read joins the current transaction, increment level
+            tx.level++;
         }
         
+        Connection conn = tx.connection;
         try {
             R result = operation.apply(conn);
             
-            // Only commit if this is the outermost transaction
+            // Only finish if this is the outermost transaction
             if (isOutermostTransaction) {
                 try {
-                    conn.commit();
+                    if (tx.readOnly) {
+                        // Nothing to commit, just release the shared lock
+                        conn.rollback();
+                    } else {
+                        CommitObserver observer = commitObserver;
+                        long observed = observer != null ? observer.beforeCommit(conn) : 0;
+                        long commitStart = System.nanoTime();
+                        try {
+                            conn.commit();
+                        } finally {
+                            if (observer != null) {
+                                observer.afterCommit(conn, observed);
+                            }
+                        }
+                        tx.commitNanos = System.nanoTime() - commitStart;
+                    }
+                    tx.succeeded = true;
                 } catch (SQLException e) {
                     try {
                         conn.rollback();
@@ -107,18 +672,137 @@ public class TransactionManager {
             throw new DataAccessException("Transaction failed", e);
         } finally {
             if (isOutermostTransaction) {
+                recordMetrics(tx);
                 closeConnection(conn);
-                currentConnection.remove();
-                transactionLevel.remove();
+                currentTransaction.remove();
+                if (tx.succeeded && !tx.readOnly) {
+                    // Only after the commit, so a result computed from older data is never tagged with the new version
+                    dataVersion.incrementAndGet();
+                }
+                runCompletionActions(tx);
             } else {
                 // Decrement transaction level for nested transactions
-                transactionLevel.set(transactionLevel.get() - 1);
+                tx.level--;
+            }
+        }
+    }
+    
+    /**
+     * Run the actions registered with {@link #afterCompletion(Runnable)} for a finished transaction
+     * @param tx The transaction
+     */
+    private void runCompletionActions(Transaction tx) {
+        if (tx.completionActions == null) {
+            return;
+        }
+        for (Runnable action : tx.completionActions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                // Just log the error, the transaction itself has already finished
+                System.err.println("Transaction completion action failed: " + e.getMessage());
             }
         }
     }
     
     /**
-     * Close a database connection
+     * Record a finished outermost transaction in the metrics
+     * @param tx The transaction
+     */
+    private void recordMetrics(Transaction tx) {
+        if (tx.tag == null || !metrics.isEnabled()) {
+            return;
+        }
+        StatementCounter counter = ConnectionPool.counterOf(tx.connection);
+        metrics.record(tx.tag, System.nanoTime() - tx.startNanos, tx.commitNanos,
+                       counter != null ? counter.getStatements() : 0,
+                       counter != null ? counter.getRowsRead() : 0,
+                       tx.succeeded);
+    }
+    
+    /**
+     * Run a nested write scope inside a savepoint of the current transaction
+     * @param <R> The return type of the function
+     * @param tx The current transaction
+     * @param operation The function to execute
+     * @return The result of the function
+     */
+    private <R> R executeNested(Transaction tx, Function<Connection, R> operation) {
+        tx.level++;
+        try {
+            return inSavepoint(() -> operation.apply(tx.connection));
+        } catch (DataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new DataAccessException("Transaction failed", e);
+        } finally {
+            tx.level--;
+        }
+    }
+    
+    /**
+     * Run work inside a savepoint of the current transaction, rolling back to it if the work fails
+     * @param <R> The return type of the work
+     * @param work The work to run
+     * @return The result of the work
+     */
+    private <R> R inSavepoint(Supplier<R> work) {
+        Connection conn = currentTransaction.get().connection;
+        Savepoint savepoint;
+        try {
+            savepoint = conn.setSavepoint();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to set savepoint", e);
+        }
+        
+        try {
+            R result = work.get();
+            conn.releaseSavepoint(savepoint);
+            return result;
+        } catch (SQLException e) {
+            rollbackToSavepoint(conn, savepoint);
+            throw new DataAccessException("Failed to release savepoint", e);
+        } catch (RuntimeException | Error e) {
+            rollbackToSavepoint(conn, savepoint);
+            throw e;
+        }
+    }
+    
+    /**
+     * Undo the work done since a savepoint and remove the savepoint
+     * @param conn The connection of the current transaction
+     * @param savepoint The savepoint to roll back to
+     */
+    private void rollbackToSavepoint(Connection conn, Savepoint savepoint) {
+        // The identity map may hold entities written after the savepoint
+        Transaction tx = currentTransaction.get();
+        if (tx != null && tx.identities != null) {
+            tx.identities.clear();
+        }
+        try {
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to rollback to savepoint", e);
+        }
+    }
+    
+    /**
+     * Stop accepting async work, unregister the metrics, then close the write queue and the connection pools
+     */
+    @Override
+    public void close() {
+        asyncExecutor.shutdown();
+        metrics.close();
+        if (writeQueue != null) {
+            writeQueue.close();
+        }
+        connectionPool.close();
+        readerPool.close();
+    }
+    
+    /**
+     * Return a database connection to the pool
      * @param conn The connection to close
      */
     private void closeConnection(Connection conn) {
@@ -131,4 +815,33 @@ public class TransactionManager {
             }
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * State of the transaction bound to the current thread
+     */
+    private static final class Transaction {
+        private final Connection connection;
+        private final boolean readOnly;
+        private final String tag;
+        private final long startNanos;
+        private long commitNanos;
+        private boolean succeeded;
+        private int level = 1;
+        private IdentityMap identities;
+        private List<Runnable> completionActions;
+        
+        Transaction(Connection connection, boolean readOnly, String tag, long startNanos) {
+            this.connection = connection;
+            this.readOnly = readOnly;
+            this.tag = tag;
+            this.startNanos = startNanos;
+        }
+        
+        IdentityMap identities() {
+            if (identities == null) {
+                identities = new IdentityMap();
+            }
+            return identities;
+        }
+    }
+}
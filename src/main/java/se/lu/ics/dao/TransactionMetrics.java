@@ -0,0 +1,176 @@
+package se.lu.ics.dao;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Collects {@link TransactionStats} per calling method and publishes each of them as an MXBean
+ * on the platform MBean server, so they can be read with JConsole or scraped by a local JMX agent.
+ * The {@link CacheStats} of the caching DAOs are published next to them.
+ * A transaction is tagged with the innermost service method on the stack when it starts,
+ * or with the first caller outside the DAO layer if no service is involved.
+ * Recording is off until {@link TransactionManager#setMetricsEnabled(boolean)} turns it on.
+ */
+public class TransactionMetrics implements AutoCloseable {
+    
+    /** JMX domain the MXBeans are registered under */
+    public static final String JMX_DOMAIN = "se.lu.ics";
+    
+    private static final String SERVICE_PACKAGE = "se.lu.ics.service.";
+    private static final String DAO_PACKAGE = "se.lu.ics.dao.";
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+    
+    private final Map<String, TransactionStats> statsByTag = new ConcurrentHashMap<>();
+    private final Set<String> registeredTags = ConcurrentHashMap.newKeySet();
+    private final Set<ObjectName> registeredCaches = ConcurrentHashMap.newKeySet();
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private volatile boolean enabled;
+    
+    /**
+     * Record one finished transaction
+     * @param tag The calling method
+     * @param durationNanos Time from start until commit or rollback finished
+     * @param commitNanos Time spent committing, 0 if nothing was committed
+     * @param statements Number of statements executed
+     * @param rowsRead Number of rows read
+     * @param success Whether the transaction committed rather than rolled back on an error
+     */
+    void record(String tag, long durationNanos, long commitNanos, long statements, long rowsRead, boolean success) {
+        statsByTag.computeIfAbsent(tag, this::register)
+                  .record(durationNanos, commitNanos, statements, rowsRead, success);
+    }
+    
+    /**
+     * Create the statistics for a new tag and register them with JMX
+     * @param tag The calling method
+     * @return The statistics
+     */
+    private TransactionStats register(String tag) {
+        TransactionStats stats = new TransactionStats(tag);
+        try {
+            mbeanServer.registerMBean(stats, objectName(tag));
+            registeredTags.add(tag);
+        } catch (InstanceAlreadyExistsException e) {
+            // Another transaction manager in this JVM already publishes this tag
+        } catch (JMException e) {
+            System.err.println("Failed to register transaction statistics for " + tag + ": " + e.getMessage());
+        }
+        return stats;
+    }
+    
+    private static ObjectName objectName(String tag) throws JMException {
+        return new ObjectName(JMX_DOMAIN + ":type=Transactions,name=" + ObjectName.quote(tag));
+    }
+    
+    /**
+     * Find the method a new transaction is started for
+     * @return The innermost service method on the stack as Class.method, or the first caller outside the DAO layer
+     */
+    static String callerTag() {
+        return STACK_WALKER.walk(frames -> {
+            String fallback = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                String className = frame.getClassName();
+                if (className.startsWith(SERVICE_PACKAGE)) {
+                    return tag(className, frame.getMethodName());
+                }
+                if (fallback == null && !className.startsWith(DAO_PACKAGE) && !className.startsWith("java.")) {
+                    fallback = tag(className, frame.getMethodName());
+                }
+            }
+            return fallback != null ? fallback : "unknown";
+        });
+    }
+    
+    private static String tag(String className, String methodName) {
+        String simpleName = className.substring(className.lastIndexOf('.') + 1);
+        int nested = simpleName.indexOf('$');
+        if (nested >= 0) {
+            simpleName = simpleName.substring(0, nested);
+        }
+        // Code in a lambda is reported as lambda$method$N; tag it with the enclosing method
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', 7);
+            methodName = end > 7 ? methodName.substring(7, end) : methodName;
+        }
+        return simpleName + "." + methodName;
+    }
+    
+    /**
+     * Turn recording on or off
+     * @param enabled Whether transactions should be recorded
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * @return Whether transactions are recorded
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Get the statistics of one calling method
+     * @param tag The calling method, as Class.method
+     * @return The statistics, or null if no transaction has been recorded for it
+     */
+    public TransactionStats get(String tag) {
+        return statsByTag.get(tag);
+    }
+    
+    /**
+     * @return The statistics of all calling methods, by tag
+     */
+    public Map<String, TransactionStats> getAll() {
+        return Collections.unmodifiableMap(statsByTag);
+    }
+    
+    /**
+     * Publish the statistics of a cache as an MXBean, registered as se.lu.ics:type=Caches,name=&lt;name&gt;
+     * @param stats The cache statistics
+     */
+    public void registerCache(CacheStats stats) {
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=Caches,name=" + ObjectName.quote(stats.getName()));
+            mbeanServer.registerMBean(stats, name);
+            registeredCaches.add(name);
+        } catch (InstanceAlreadyExistsException e) {
+            // Another transaction manager in this JVM already publishes this cache
+        } catch (JMException e) {
+            System.err.println("Failed to register cache statistics for " + stats.getName() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Unregister the MXBeans
+     */
+    @Override
+    public void close() {
+        for (ObjectName name : registeredCaches) {
+            try {
+                mbeanServer.unregisterMBean(name);
+                registeredCaches.remove(name);
+            } catch (JMException e) {
+                System.err.println("Failed to unregister cache statistics " + name + ": " + e.getMessage());
+            }
+        }
+        for (String tag : registeredTags) {
+            try {
+                mbeanServer.unregisterMBean(objectName(tag));
+                registeredTags.remove(tag);
+            } catch (JMException e) {
+                System.err.println("Failed to unregister transaction statistics for " + tag + ": " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package se.lu.ics.dao;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timing and work counters for the transactions started from one calling method.
+ */
+public class TransactionStats implements TransactionStatsMXBean {
+    
+    private final String tag;
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private final LatencyHistogram commits = new LatencyHistogram();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final AtomicLong maxStatements = new AtomicLong();
+    private final LongAdder rowsRead = new LongAdder();
+    private final AtomicLong maxRowsRead = new AtomicLong();
+    
+    /**
+     * Constructor that takes the tag of the calling method
+     * @param tag The calling method, as Class.method
+     */
+    public TransactionStats(String tag) {
+        this.tag = tag;
+    }
+    
+    /**
+     * Record one finished transaction
+     * @param durationNanos Time from start until commit or rollback finished
+     * @param commitNanos Time spent committing, 0 if nothing was committed
+     * @param statementCount Number of statements executed
+     * @param rowCount Number of rows read
+     * @param success Whether the transaction committed rather than rolled back on an error
+     */
+    void record(long durationNanos, long commitNanos, long statementCount, long rowCount, boolean success) {
+        durations.record(durationNanos);
+        if (commitNanos > 0) {
+            commits.record(commitNanos);
+        }
+        if (!success) {
+            failed.increment();
+        }
+        statements.add(statementCount);
+        maxStatements.accumulateAndGet(statementCount, Math::max);
+        rowsRead.add(rowCount);
+        maxRowsRead.accumulateAndGet(rowCount, Math::max);
+    }
+    
+    @Override
+    public String getTag() {
+        return tag;
+    }
+    
+    @Override
+    public long getCount() {
+        return durations.getCount();
+    }
+    
+    @Override
+    public long getFailedCount() {
+        return failed.sum();
+    }
+    
+    @Override
+    public double getMeanDurationMillis() {
+        return durations.getMeanMillis();
+    }
+    
+    @Override
+    public double getP50DurationMillis() {
+        return durations.getPercentileMillis(50);
+    }
+    
+    @Override
+    public double getP95DurationMillis() {
+        return durations.getPercentileMillis(95);
+    }
+    
+    @Override
+    public double getP99DurationMillis() {
+        return durations.getPercentileMillis(99);
+    }
+    
+    @Override
+    public double getMaxDurationMillis() {
+        return durations.getMaxMillis();
+    }
+    
+    @Override
+    public double getMeanCommitMillis() {
+        return commits.getMeanMillis();
+    }
+    
+    @Override
+    public double getP99CommitMillis() {
+        return commits.getPercentileMillis(99);
+    }
+    
+    @Override
+    public double getMaxCommitMillis() {
+        return commits.getMaxMillis();
+    }
+    
+    @Override
+    public long getStatementCount() {
+        return statements.sum();
+    }
+    
+    @Override
+    public double getMeanStatements() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) statements.sum() / count;
+    }
+    
+    @Override
+    public long getMaxStatements() {
+        return maxStatements.get();
+    }
+    
+    @Override
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+    
+    @Override
+    public double getMeanRowsRead() {
+        long count = getCount();
+        return count == 0 ? 0.0 : (double) rowsRead.sum() / count;
+    }
+    
+    @Override
+    public long getMaxRowsRead() {
+        return maxRowsRead.get();
+    }
+    
+    @Override
+    public Map<String, Long> getDurationHistogram() {
+        return durations.getBuckets();
+    }
+    
+    @Override
+    public Map<String, Long> getCommitHistogram() {
+        return commits.getBuckets();
+    }
+    
+    @Override
+    public void reset() {
+        durations.reset();
+        commits.reset();
+        failed.reset();
+        statements.reset();
+        maxStatements.set(0);
+        rowsRead.reset();
+        maxRowsRead.set(0);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("TransactionStats[%s: count=%d, failed=%d, mean=%.3f ms, p99=%.3f ms, " +
+                             "commit=%.3f ms, statements=%.1f, rows=%.1f]",
+                             tag, getCount(), getFailedCount(), getMeanDurationMillis(), getP99DurationMillis(),
+                             getMeanCommitMillis(), getMeanStatements(), getMeanRowsRead());
+    }
+}
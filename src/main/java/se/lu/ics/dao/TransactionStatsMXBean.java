@@ -0,0 +1,110 @@
+package se.lu.ics.dao;
+
+import java.util.Map;
+
+/**
+ * JMX view of the transactions started from one calling method.
+ * Registered as se.lu.ics:type=Transactions,name=&lt;Class.method&gt;.
+ */
+public interface TransactionStatsMXBean {
+    
+    /**
+     * @return The calling method the transactions are tagged with
+     */
+    String getTag();
+    
+    /**
+     * @return The number of transactions finished
+     */
+    long getCount();
+    
+    /**
+     * @return The number of transactions that were rolled back because of an error
+     */
+    long getFailedCount();
+    
+    /**
+     * @return The mean transaction duration in milliseconds
+     */
+    double getMeanDurationMillis();
+    
+    /**
+     * @return The median transaction duration in milliseconds
+     */
+    double getP50DurationMillis();
+    
+    /**
+     * @return The 95th percentile of the transaction duration in milliseconds
+     */
+    double getP95DurationMillis();
+    
+    /**
+     * @return The 99th percentile of the transaction duration in milliseconds
+     */
+    double getP99DurationMillis();
+    
+    /**
+     * @return The longest transaction duration in milliseconds
+     */
+    double getMaxDurationMillis();
+    
+    /**
+     * @return The mean commit latency in milliseconds
+     */
+    double getMeanCommitMillis();
+    
+    /**
+     * @return The 99th percentile of the commit latency in milliseconds
+     */
+    double getP99CommitMillis();
+    
+    /**
+     * @return The longest commit latency in milliseconds
+     */
+    double getMaxCommitMillis();
+    
+    /**
+     * @return The total number of statements executed
+     */
+    long getStatementCount();
+    
+    /**
+     * @return The mean number of statements per transaction
+     */
+    double getMeanStatements();
+    
+    /**
+     * @return The highest number of statements in one transaction
+     */
+    long getMaxStatements();
+    
+    /**
+     * @return The total number of rows read
+     */
+    long getRowsRead();
+    
+    /**
+     * @return The mean number of rows read per transaction
+     */
+    double getMeanRowsRead();
+    
+    /**
+     * @return The highest number of rows read in one transaction
+     */
+    long getMaxRowsRead();
+    
+    /**
+     * @return Transaction durations per histogram bucket
+     */
+    Map<String, Long> getDurationHistogram();
+    
+    /**
+     * @return Commit latencies per histogram bucket
+     */
+    Map<String, Long> getCommitHistogram();
+    
+    /**
+     * Forget everything recorded so far
+     */
+    void reset();
+}
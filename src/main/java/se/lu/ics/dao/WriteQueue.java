@@ -0,0 +1,441 @@
+package se.lu.ics.dao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import se.lu.ics.exception.DataAccessException;
+
+/**
+ * Submission queue in front of the single writer connection.
+ * Write transactions are queued in arrival order and executed one at a time by a dedicated
+ * writer thread, so writers never compete for SQLite's write lock while readers keep running
+ * on their own connections.
+ * In group-commit mode the writer thread collects the writes that arrive within a short window
+ * and runs them in one shared transaction, each in its own nested scope, so a burst of small writes
+ * pays for a single commit while every submitter still gets its own result.
+ */
+public class WriteQueue implements AutoCloseable {
+    
+    /** Marker task that tells the writer thread to stop */
+    private static final WriteTask<Void> SHUTDOWN = new WriteTask<>(() -> null);
+    
+    /** How often a waiting submitter checks that the writer thread is still running */
+    private static final long WRITER_CHECK_MILLIS = 1_000;
+    
+    private final BlockingQueue<WriteTask<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+    private volatile boolean closed;
+    private volatile boolean drained;
+    private volatile boolean busy;
+    private volatile GroupCommit groupCommit;
+    
+    // Statistics
+    private final LongAdder completedTasks = new LongAdder();
+    private final LongAdder failedTasks = new LongAdder();
+    private final LongAdder totalQueueNanos = new LongAdder();
+    private final AtomicLong maxQueueNanos = new AtomicLong();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedTasks = new LongAdder();
+    
+    /**
+     * Constructor that starts the writer thread
+     * @param name The name of the writer thread
+     */
+    public WriteQueue(String name) {
+        this.writerThread = new Thread(this::runWriter, name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+    
+    /**
+     * Run a write operation on the writer thread and wait for its result
+     * @param <R> The return type of the operation
+     * @param operation The operation to run
+     * @return The result of the operation
+     * @throws DataAccessException If the queue is closed or the operation fails
+     */
+    public <R> R submit(Supplier<R> operation) {
+        if (closed) {
+            throw new DataAccessException("Write queue is closed");
+        }
+        
+        WriteTask<R> task = new WriteTask<>(operation);
+        queue.add(task);
+        if (drained) {
+            // close() got in after the check above and the writer may have drained the queue without this task
+            task.result.completeExceptionally(new DataAccessException("Write queue is closed"));
+        }
+        return await(task);
+    }
+    
+    /**
+     * Wait for a submitted write, failing it if the writer thread has stopped and can never run it
+     * @param <R> The return type of the operation
+     * @param task The submitted write
+     * @return The result of the operation
+     */
+    private <R> R await(WriteTask<R> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.result.get(WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    if (!writerThread.isAlive()) {
+                        task.result.completeExceptionally(new DataAccessException("Writer thread has stopped"));
+                    }
+                } catch (InterruptedException e) {
+                    // The write may already be running, so keep waiting for its outcome
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new DataAccessException("Write operation failed", cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Check whether the calling thread is the writer thread
+     * @return true if called from inside a queued write operation
+     */
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writerThread;
+    }
+    
+    /**
+     * Check whether the writer has nothing to do right now
+     * @return true if no write is running or waiting
+     */
+    public boolean isIdle() {
+        return !busy && queue.isEmpty();
+    }
+    
+    /**
+     * Let writes that arrive close together share one transaction and commit
+     * @param windowMillis How long to wait for more writes after the first one arrives
+     * @param maxBatchSize The maximum number of writes sharing a commit
+     * @param committer Runs the shared transaction and the nested scope of each write
+     */
+    public void enableGroupCommit(long windowMillis, int maxBatchSize, GroupCommitter committer) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.groupCommit = new GroupCommit(TimeUnit.MILLISECONDS.toNanos(windowMillis), maxBatchSize, committer);
+    }
+    
+    /**
+     * Go back to one commit per write
+     */
+    public void disableGroupCommit() {
+        this.groupCommit = null;
+    }
+    
+    /**
+     * Check whether writes are grouped into shared commits
+     * @return true if group commit is enabled
+     */
+    public boolean isGroupCommitEnabled() {
+        return groupCommit != null;
+    }
+    
+    /**
+     * Loop of the writer thread: take tasks in arrival order and run them one at a time,
+     * or a batch at a time in group-commit mode
+     */
+    private void runWriter() {
+        boolean shutdown = false;
+        while (!shutdown) {
+            WriteTask<?> task;
+            try {
+                task = queue.take();
+            } catch (InterruptedException e) {
+                continue; // Only close() stops the writer
+            }
+            if (task == SHUTDOWN) {
+                break;
+            }
+            
+            busy = true;
+            try {
+                GroupCommit group = groupCommit;
+                if (group == null) {
+                    recordQueueTime(task);
+                    task.run();
+                    recordCompletion(task);
+                } else {
+                    List<WriteTask<?>> batch = new ArrayList<>();
+                    batch.add(task);
+                    shutdown = collectBatch(batch, group);
+                    runBatch(batch, group.committer);
+                }
+            } finally {
+                busy = false;
+            }
+        }
+        
+        // Anything still queued after shutdown can no longer be written; submit() fails later arrivals itself
+        drained = true;
+        WriteTask<?> task;
+        while ((task = queue.poll()) != null) {
+            task.result.completeExceptionally(new DataAccessException("Write queue is closed"));
+        }
+    }
+    
+    /**
+     * Wait up to the group-commit window for more writes to join the batch
+     * @param batch The batch, holding the first write
+     * @param group The group-commit settings
+     * @return true if the queue was closed while collecting
+     */
+    private boolean collectBatch(List<WriteTask<?>> batch, GroupCommit group) {
+        long deadline = System.nanoTime() + group.windowNanos;
+        while (batch.size() < group.maxBatchSize) {
+            WriteTask<?> next = queue.poll();
+            if (next == null) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (next == null) {
+                    break;
+                }
+            }
+            if (next == SHUTDOWN) {
+                return true;
+            }
+            batch.add(next);
+        }
+        return false;
+    }
+    
+    /**
+     * Run a batch of writes in one transaction. A write that fails is rolled back on its own;
+     * all submitters get their results once the shared commit has succeeded. A write that finds the
+     * database busy or locked fails the whole transaction, which is retried under the retry policy
+     * with every write in the batch run again.
+     * @param batch The writes to run
+     * @param committer Runs the shared transaction and the nested scope of each write
+     */
+    private void runBatch(List<WriteTask<?>> batch, GroupCommitter committer) {
+        for (WriteTask<?> task : batch) {
+            recordQueueTime(task);
+        }
+        
+        try {
+            committer.inTransaction(() -> {
+                for (WriteTask<?> task : batch) {
+                    task.runScoped(committer);
+                }
+            });
+            for (WriteTask<?> task : batch) {
+                task.complete();
+            }
+        } catch (Throwable t) {
+            // The shared commit failed, so none of the writes took effect
+            for (WriteTask<?> task : batch) {
+                task.result.completeExceptionally(t);
+            }
+        }
+        
+        batches.increment();
+        batchedTasks.add(batch.size());
+        for (WriteTask<?> task : batch) {
+            recordCompletion(task);
+        }
+    }
+    
+    private void recordQueueTime(WriteTask<?> task) {
+        long queued = System.nanoTime() - task.submittedAt;
+        totalQueueNanos.add(queued);
+        maxQueueNanos.accumulateAndGet(queued, Math::max);
+    }
+    
+    private void recordCompletion(WriteTask<?> task) {
+        if (task.result.isCompletedExceptionally()) {
+            failedTasks.increment();
+        }
+        completedTasks.increment();
+    }
+    
+    /**
+     * Stop accepting writes. Writes already queued are still executed.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            queue.add(SHUTDOWN);
+        }
+    }
+    
+    // ========== Statistics ==========
+    
+    /**
+     * @return The number of writes waiting to be executed
+     */
+    public int getQueueLength() {
+        return queue.size();
+    }
+    
+    /**
+     * @return The number of writes executed, including failed ones
+     */
+    public long getCompletedCount() {
+        return completedTasks.sum();
+    }
+    
+    /**
+     * @return The number of writes that failed
+     */
+    public long getFailedCount() {
+        return failedTasks.sum();
+    }
+    
+    /**
+     * @return The average time a write waited in the queue, in milliseconds
+     */
+    public double getAverageQueueMillis() {
+        long count = completedTasks.sum();
+        return count == 0 ? 0.0 : totalQueueNanos.sum() / 1_000_000.0 / count;
+    }
+    
+    /**
+     * @return The longest time a write waited in the queue, in milliseconds
+     */
+    public double getMaxQueueMillis() {
+        return maxQueueNanos.get() / 1_000_000.0;
+    }
+    
+    /**
+     * @return The number of group commits, i.e. batches of writes that shared one commit
+     */
+    public long getBatchCount() {
+        return batches.sum();
+    }
+    
+    /**
+     * @return The average number of writes sharing a group commit
+     */
+    public double getAverageBatchSize() {
+        long count = batches.sum();
+        return count == 0 ? 0.0 : (double) batchedTasks.sum() / count;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("WriteQueue[queued=%d, completed=%d, failed=%d, avgQueue=%.3f ms, maxQueue=%.3f ms, " +
+                             "batches=%d, avgBatch=%.1f]",
+                             getQueueLength(), getCompletedCount(), getFailedCount(),
+                             getAverageQueueMillis(), getMaxQueueMillis(), getBatchCount(), getAverageBatchSize());
+    }
+    
+    /**
+     * Transaction hooks used by group commit
+     */
+    public interface GroupCommitter {
+        
+        /**
+         * Run the body in one transaction and commit it
+         * @param body The work of the whole batch
+         */
+        void inTransaction(Runnable body);
+        
+        /**
+         * Run one write in a nested scope of the current transaction that is rolled back alone if it fails
+         * @param <R> The return type of the write
+         * @param write The write to run
+         * @return The result of the write
+         */
+        <R> R inNestedScope(Supplier<R> write);
+    }
+    
+    /**
+     * Group-commit settings
+     */
+    private static final class GroupCommit {
+        private final long windowNanos;
+        private final int maxBatchSize;
+        private final GroupCommitter committer;
+        
+        GroupCommit(long windowNanos, int maxBatchSize, GroupCommitter committer) {
+            this.windowNanos = windowNanos;
+            this.maxBatchSize = maxBatchSize;
+            this.committer = committer;
+        }
+    }
+    
+    /**
+     * A queued write operation and the future its submitter waits on
+     * @param <R> The return type of the operation
+     */
+    private static final class WriteTask<R> {
+        private final Supplier<R> operation;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private final long submittedAt = System.nanoTime();
+        private R value;
+        private Throwable failure;
+        
+        WriteTask(Supplier<R> operation) {
+            this.operation = operation;
+        }
+        
+        void run() {
+            try {
+                result.complete(operation.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+        
+        /**
+         * Run the operation inside a group commit; the outcome is held back until the commit.
+         * A busy or locked database is not this write's own failure: it is passed on, so the whole
+         * group is rolled back and retried.
+         */
+        void runScoped(GroupCommitter committer) {
+            try {
+                value = committer.inNestedScope(operation);
+                failure = null;
+            } catch (RuntimeException | Error e) {
+                if (TransactionManager.isBusy(e)) {
+                    throw e;
+                }
+                value = null;
+                failure = e;
+            }
+        }
+        
+        void complete() {
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
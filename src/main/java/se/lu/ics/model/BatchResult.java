@@ -0,0 +1,90 @@
+package se.lu.ics.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk write. Rows are written independently, so one bad row does not stop the others;
+ * every row that could not be written is listed with its position in the input and the reason.
+ */
+public class BatchResult {
+    private final int attempted;
+    private final List<Failure> failures;
+
+    /**
+     * Constructor with all fields
+     * @param attempted The number of rows that were to be written
+     * @param failures The rows that could not be written, in input order
+     */
+    public BatchResult(int attempted, List<Failure> failures) {
+        this.attempted = attempted;
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    public int getAttempted() {
+        return attempted;
+    }
+
+    public int getSucceeded() {
+        return attempted - failures.size();
+    }
+
+    public List<Failure> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true if every row was written
+     */
+    public boolean isComplete() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return getSucceeded() + " of " + attempted + " rows written" +
+               (failures.isEmpty() ? "" : ", " + failures.size() + " failed");
+    }
+
+    /**
+     * A row that could not be written.
+     */
+    public static final class Failure {
+        private final int index;
+        private final String id;
+        private final Exception cause;
+
+        /**
+         * Constructor with all fields
+         * @param index The position of the row in the input list
+         * @param id The ID of the row's entity
+         * @param cause Why the row could not be written
+         */
+        public Failure(int index, String id, Exception cause) {
+            this.index = index;
+            this.id = id;
+            this.cause = cause;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Exception getCause() {
+            return cause;
+        }
+
+        public String getMessage() {
+            return cause.getMessage();
+        }
+
+        @Override
+        public String toString() {
+            return "#" + index + " (" + id + "): " + getMessage();
+        }
+    }
+}
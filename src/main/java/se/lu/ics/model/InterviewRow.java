@@ -0,0 +1,65 @@
+package se.lu.ics.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of an interview shown in the main interview table.
+ * Read by a projection query that skips the notes and the full recruitment, role and applicant;
+ * the full Interview is loaded by ID when a row is opened.
+ */
+public final class InterviewRow {
+    private final String id;
+    private final LocalDateTime dateTime;
+    private final String applicantName;
+    private final String roleTitle;
+    private final String interviewer;
+    private final InterviewStatus status;
+
+    /**
+     * Constructor with all fields
+     * @param id The interview ID
+     * @param dateTime The date and time of the interview
+     * @param applicantName The full name of the applicant
+     * @param roleTitle The title of the role being recruited for
+     * @param interviewer The interviewer
+     * @param status The interview status
+     */
+    public InterviewRow(String id, LocalDateTime dateTime, String applicantName, String roleTitle,
+                        String interviewer, InterviewStatus status) {
+        this.id = id;
+        this.dateTime = dateTime;
+        this.applicantName = applicantName;
+        this.roleTitle = roleTitle;
+        this.interviewer = interviewer;
+        this.status = status;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    public String getApplicantName() {
+        return applicantName;
+    }
+
+    public String getRoleTitle() {
+        return roleTitle;
+    }
+
+    public String getInterviewer() {
+        return interviewer;
+    }
+
+    public InterviewStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        return applicantName + " - " + roleTitle;
+    }
+}
@@ -0,0 +1,41 @@
+package se.lu.ics.model;
+
+/**
+ * One place on a leaderboard ranked by number of applicants.
+ * Entries with the same count share a rank (1, 1, 3, ...); ties are listed by ascending ID.
+ * @param <T> The ranked item, e.g. a Recruitment or a Role
+ */
+public class LeaderboardEntry<T> {
+    private final int rank;
+    private final T item;
+    private final int applicantCount;
+
+    /**
+     * Constructor with all fields
+     * @param rank The rank, starting at 1
+     * @param item The ranked item
+     * @param applicantCount The number of applicants the item is ranked by
+     */
+    public LeaderboardEntry(int rank, T item, int applicantCount) {
+        this.rank = rank;
+        this.item = item;
+        this.applicantCount = applicantCount;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public T getItem() {
+        return item;
+    }
+
+    public int getApplicantCount() {
+        return applicantCount;
+    }
+
+    @Override
+    public String toString() {
+        return rank + ". " + item + " (" + applicantCount + " applicants)";
+    }
+}
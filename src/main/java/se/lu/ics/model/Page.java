@@ -0,0 +1,45 @@
+package se.lu.ics.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a list read with keyset pagination.
+ * The next page is requested with {@link #getNextKey()} as the after-key, so every page costs
+ * the same however deep into the list it is.
+ * @param <T> The listed item, e.g. an Applicant or an Interview
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextKey;
+
+    /**
+     * Constructor with all fields
+     * @param items The items on this page, in the requested order
+     * @param nextKey The key to read the next page after, or null if this is the last page
+     */
+    public Page(List<T> items, String nextKey) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextKey = nextKey;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * @return The key of the last item on this page, or null if there are no more pages
+     */
+    public String getNextKey() {
+        return nextKey;
+    }
+
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+
+    @Override
+    public String toString() {
+        return items.size() + " items" + (hasNext() ? ", next after " + nextKey : ", last page");
+    }
+}
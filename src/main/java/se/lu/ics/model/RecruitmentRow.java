@@ -0,0 +1,58 @@
+package se.lu.ics.model;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of a recruitment shown in the main recruitment table.
+ * Read by a projection query that skips the rest of the recruitment and its role;
+ * the full Recruitment is loaded by ID when a row is opened.
+ */
+public final class RecruitmentRow {
+    private final String id;
+    private final String roleTitle;
+    private final LocalDate applicationDeadline;
+    private final RecruitmentStatus status;
+    private final int applicantCount;
+
+    /**
+     * Constructor with all fields
+     * @param id The recruitment ID
+     * @param roleTitle The title of the recruitment's role
+     * @param applicationDeadline The application deadline
+     * @param status The recruitment status
+     * @param applicantCount The number of applicants
+     */
+    public RecruitmentRow(String id, String roleTitle, LocalDate applicationDeadline,
+                          RecruitmentStatus status, int applicantCount) {
+        this.id = id;
+        this.roleTitle = roleTitle;
+        this.applicationDeadline = applicationDeadline;
+        this.status = status;
+        this.applicantCount = applicantCount;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRoleTitle() {
+        return roleTitle;
+    }
+
+    public LocalDate getApplicationDeadline() {
+        return applicationDeadline;
+    }
+
+    public RecruitmentStatus getStatus() {
+        return status;
+    }
+
+    public int getApplicantCount() {
+        return applicantCount;
+    }
+
+    @Override
+    public String toString() {
+        return id + " - " + roleTitle;
+    }
+}
@@ -0,0 +1,16 @@
+package se.lu.ics.model;
+
+/**
+ * Enum representing the direction a page of results is sorted in.
+ */
+public enum SortOrder {
+    /**
+     * Lowest key first
+     */
+    ASCENDING,
+    
+    /**
+     * Highest key first
+     */
+    DESCENDING
+}
@@ -1,6 +1,9 @@
 package se.lu.ics.service;
 
 import org.sqlite.SQLiteDataSource;
+import se.lu.ics.dao.CachingApplicantDao;
+import se.lu.ics.dao.CachingRecruitmentDao;
+import se.lu.ics.dao.SlowQueryLoggingDataSource;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
@@ -12,16 +15,42 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 /**
- * Skapar (en gång) SQLite-schemat och exponerar en singleton-DataSource.
+ * Skapar (en gång) SQLite-schemat och exponerar en singleton-DataSource,
+ * plus en separat skrivskyddad DataSource för läsanslutningar.
+ * I WAL-läge (standard, stängs av med -Dvikingexpress.db.wal=false) kan läsare arbeta
+ * parallellt med den enda skrivaren.
  */
 public final class DatabaseService {
 
     private static final String DB_URL = "jdbc:sqlite:vikingexpress.db";
     private static final SQLiteDataSource DS = new SQLiteDataSource();
+    private static final SQLiteDataSource READ_DS = new SQLiteDataSource();
+    private static final boolean WAL_MODE = Boolean.parseBoolean(System.getProperty("vikingexpress.db.wal", "true"));
+    private static final int READER_COUNT = Integer.getInteger("vikingexpress.db.readers", 4);
+    private static final boolean GROUP_COMMIT = Boolean.getBoolean("vikingexpress.db.groupCommit");
+    private static final boolean METRICS = Boolean.getBoolean("vikingexpress.db.metrics");
+    private static final long SLOW_QUERY_MILLIS = Long.getLong("vikingexpress.db.slowQueryMillis", -1);
+    private static final int APPLICANT_CACHE_SIZE = Integer.getInteger("vikingexpress.cache.applicants",
+            CachingApplicantDao.DEFAULT_MAX_SIZE);
+    private static final long APPLICANT_CACHE_BYTES = Long.getLong("vikingexpress.cache.applicants.maxBytes",
+            CachingApplicantDao.DEFAULT_MAX_BYTES);
+    private static final int RECRUITMENT_CACHE_SIZE = Integer.getInteger("vikingexpress.cache.recruitments",
+            CachingRecruitmentDao.DEFAULT_MAX_SIZE);
+    private static final long RECRUITMENT_CACHE_BYTES = Long.getLong("vikingexpress.cache.recruitments.maxBytes",
+            CachingRecruitmentDao.DEFAULT_MAX_BYTES);
+    private static final int JOURNAL_SIZE_LIMIT = 64 * 1024 * 1024;
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     static {
         DS.setUrl(DB_URL);
+        if (WAL_MODE) {
+            /* WAL: läsare blockeras inte av skrivaren; NORMAL räcker för att WAL ska vara kraschsäkert */
+            DS.setJournalMode("WAL");
+            DS.setSynchronous("NORMAL");
+            DS.setJournalSizeLimit(JOURNAL_SIZE_LIMIT);
+        } else {
+            DS.setJournalMode("DELETE");
+        }
         try (Connection c = DS.getConnection()) {
             createTablesIfNeeded(c);
             ensureBasicDataExists(c);
@@ -29,9 +58,82 @@ public final class DatabaseService {
             System.err.println("DB init error: " + e.getMessage());
             e.printStackTrace();
         }
+
+        /* Läsanslutningar öppnas skrivskyddade när schemat väl finns */
+        READ_DS.setUrl(DB_URL);
+        READ_DS.setReadOnly(true);
+    }
+
+    /* Långsamma frågor loggas med parametrar och frågeplan om ett tröskelvärde anges; avstängt som standard */
+    private static final DataSource APP_DS = withSlowQueryLog(DS);
+    private static final DataSource APP_READ_DS = withSlowQueryLog(READ_DS);
+
+    private static DataSource withSlowQueryLog(DataSource ds) {
+        return SLOW_QUERY_MILLIS < 0 ? ds : new SlowQueryLoggingDataSource(ds, SLOW_QUERY_MILLIS);
     }
 
-    public static DataSource getDataSource() { return DS; }
+    public static DataSource getDataSource() { return APP_DS; }
+
+    /**
+     * Whether the database runs in WAL mode with a single writer and parallel readers
+     * @return true in WAL mode, false in rollback-journal mode
+     */
+    public static boolean isWalMode() { return WAL_MODE; }
+
+    /**
+     * Number of concurrent reader connections to use
+     * @return The reader connection count
+     */
+    public static int getReaderCount() { return READER_COUNT; }
+
+    /**
+     * Whether small write transactions should share commits (-Dvikingexpress.db.groupCommit=true)
+     * @return true if group commit is requested
+     */
+    public static boolean isGroupCommit() { return GROUP_COMMIT; }
+
+    /**
+     * Whether transactions should be timed, tagged and counted (-Dvikingexpress.db.metrics=true)
+     * @return true if transaction metrics are requested
+     */
+    public static boolean isMetricsEnabled() { return METRICS; }
+
+    /**
+     * DataSource for reader connections, opened read-only so they can never take a write lock
+     * @return The read-only datasource
+     */
+    public static DataSource getReadOnlyDataSource() { return APP_READ_DS; }
+
+    /**
+     * Threshold above which statements are logged as slow (-Dvikingexpress.db.slowQueryMillis, e.g. 100).
+     * Negative, the default, disables the slow-query log and its statement proxies.
+     * @return The threshold in milliseconds
+     */
+    public static long getSlowQueryThresholdMillis() { return SLOW_QUERY_MILLIS; }
+
+    /**
+     * Maximum number of applicants kept in memory (-Dvikingexpress.cache.applicants, 0 to disable the cache)
+     * @return The applicant cache size
+     */
+    public static int getApplicantCacheSize() { return APPLICANT_CACHE_SIZE; }
+
+    /**
+     * Approximate memory limit of the applicant cache in bytes (-Dvikingexpress.cache.applicants.maxBytes)
+     * @return The applicant cache memory limit
+     */
+    public static long getApplicantCacheMaxBytes() { return APPLICANT_CACHE_BYTES; }
+
+    /**
+     * Maximum number of recruitments kept in memory (-Dvikingexpress.cache.recruitments, 0 to disable the cache)
+     * @return The recruitment cache size
+     */
+    public static int getRecruitmentCacheSize() { return RECRUITMENT_CACHE_SIZE; }
+
+    /**
+     * Approximate memory limit of the recruitment cache in bytes (-Dvikingexpress.cache.recruitments.maxBytes)
+     * @return The recruitment cache memory limit
+     */
+    public static long getRecruitmentCacheMaxBytes() { return RECRUITMENT_CACHE_BYTES; }
 
     /* ---------- Schema ---------- */
 
@@ -82,6 +184,10 @@ public final class DatabaseService {
                   FOREIGN KEY (recruitment_id) REFERENCES recruitments(id)
                 )""");
 
+            /* Primärnyckeln börjar med applicant_id, så sökningar och räkningar per rekrytering behöver ett eget index.
+               applicant_id ingår så att sidor av sökande per rekrytering kan läsas direkt ur indexet. */
+            st.execute("CREATE INDEX IF NOT EXISTS idx_applications_recruitment_applicant ON applications(recruitment_id, applicant_id)");
+
             /* Intervjuer */
             st.execute("""
                 CREATE TABLE IF NOT EXISTS interviews (
@@ -96,6 +202,10 @@ public final class DatabaseService {
                   FOREIGN KEY (recruitment_id) REFERENCES recruitments(id),
                   FOREIGN KEY (applicant_id)   REFERENCES applicants(id)
                 )""");
+
+            /* Sidor av intervjuer per rekrytering och per kandidat, sorterade på id */
+            st.execute("CREATE INDEX IF NOT EXISTS idx_interviews_recruitment ON interviews(recruitment_id, id)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_interviews_applicant ON interviews(applicant_id, id)");
         }
     }
     
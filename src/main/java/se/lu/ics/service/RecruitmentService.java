@@ -8,6 +8,11 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.ResultSet;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import se.lu.ics.dao.ApplicantDao;
 import se.lu.ics.dao.InterviewDao;
@@ -15,16 +20,24 @@ import se.lu.ics.dao.RecruitmentDao;
 import se.lu.ics.dao.RoleDao;
 import se.lu.ics.dao.TransactionManager;
 import se.lu.ics.model.Applicant;
+import se.lu.ics.model.BatchResult;
 import se.lu.ics.model.Interview;
+import se.lu.ics.model.InterviewRow;
 import se.lu.ics.model.InterviewStatus;
+import se.lu.ics.model.LeaderboardEntry;
+import se.lu.ics.model.Page;
 import se.lu.ics.model.Recruitment;
+import se.lu.ics.model.RecruitmentRow;
 import se.lu.ics.model.Role;
+import se.lu.ics.model.SortOrder;
 import se.lu.ics.exception.DataAccessException;
 import se.lu.ics.exception.ServiceException;
 
 /**
  * Service layer for recruitment operations.
  * Coordinates database operations across multiple entities.
+ * Every operation also has an ...Async variant that runs it on a virtual thread, so callers such as
+ * the JavaFX controllers do not have to block.
  */
 public class RecruitmentService {
     private final RoleDao roleDao;
@@ -127,6 +140,48 @@ public class RecruitmentService {
         }
     }
     
+    /**
+     * Get all recruitments with their applicant count set, without loading the applicants
+     * @return List of all recruitments with {@link Recruitment#getApplicantCount()} filled in
+     * @throws ServiceException if a data access error occurs
+     */
+    public List<Recruitment> getAllRecruitmentsWithApplicantCounts() {
+        try {
+            return recruitmentDao.findAllWithApplicantCounts();
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get recruitments with applicant counts", e);
+        }
+    }
+    
+    /**
+     * Get the displayed fields of all recruitments, for tables that open the full recruitment on demand
+     * @return List of rows for all recruitments, with their applicant counts
+     * @throws ServiceException if a data access error occurs
+     */
+    public List<RecruitmentRow> getRecruitmentRows() {
+        try {
+            return recruitmentDao.findAllRows();
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get recruitment rows", e);
+        }
+    }
+    
+    /**
+     * Get one page of recruitments, sorted by ID. Every page costs the same however deep it is.
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws ServiceException if a data access error occurs
+     */
+    public Page<Recruitment> getRecruitmentsPage(String afterId, int limit, SortOrder order) {
+        try {
+            return recruitmentDao.findAll(afterId, limit, order);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get a page of recruitments", e);
+        }
+    }
+    
     /**
      * Add a new recruitment
      * @param recruitment The recruitment to add
@@ -211,6 +266,8 @@ public class RecruitmentService {
                     try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM recruitments WHERE id = ?")) {
                         stmt.setString(1, id);
                         int rows = stmt.executeUpdate();
+                        transactionManager.evictAll(Interview.class);
+                        transactionManager.evict(Recruitment.class, id);
                         return rows > 0;
                     }
                 } catch (SQLException e) {
@@ -253,6 +310,25 @@ public class RecruitmentService {
         }
     }
     
+    /**
+     * Get one page of the applicants for a recruitment, sorted by ID
+     * @param recruitment The recruitment to get applicants for
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws ServiceException if a data access error occurs
+     */
+    public Page<Applicant> getApplicantsPageForRecruitment(Recruitment recruitment, String afterId,
+                                                           int limit, SortOrder order) {
+        try {
+            return applicantDao.findByRecruitment(recruitment.getId(), afterId, limit, order);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get a page of applicants for recruitment: " + 
+                                      recruitment.getId(), e);
+        }
+    }
+    
     /**
      * Update an applicant's rank
      * @param applicant The applicant to update
@@ -368,6 +444,62 @@ public class RecruitmentService {
         }
     }
     
+    /**
+     * Add many applicants to a recruitment at once, e.g. a job-fair intake.
+     * Applicants that are not stored yet are inserted, then all of them are linked to the recruitment;
+     * both steps use JDBC batches in chunked transactions. An applicant that cannot be stored or linked
+     * is reported and does not stop the others, and applicants already linked are left as they are.
+     * @param applicants The applicants to add
+     * @param recruitment The recruitment to add them to
+     * @return Which applicants could not be added and why, by their position in the list
+     * @throws ServiceException if a data access error occurs
+     */
+    public BatchResult addApplicantsToRecruitment(List<Applicant> applicants, Recruitment recruitment) {
+        try {
+            List<String> ids = new ArrayList<>();
+            for (Applicant applicant : applicants) {
+                ids.add(applicant.getId());
+            }
+            Map<String, Applicant> existing = applicantDao.findAllByIds(ids);
+            
+            // Insert the new applicants once each
+            List<Applicant> newApplicants = new ArrayList<>();
+            Set<String> seen = new HashSet<>();
+            for (Applicant applicant : applicants) {
+                if (!existing.containsKey(applicant.getId()) && seen.add(applicant.getId())) {
+                    newApplicants.add(applicant);
+                }
+            }
+            Map<String, Exception> failed = new HashMap<>();
+            for (BatchResult.Failure failure : applicantDao.insertAll(newApplicants).getFailures()) {
+                failed.put(failure.getId(), failure.getCause());
+            }
+            
+            // Link everyone that is stored now
+            List<Applicant> stored = new ArrayList<>();
+            for (Applicant applicant : applicants) {
+                if (!failed.containsKey(applicant.getId())) {
+                    stored.add(applicant);
+                }
+            }
+            for (BatchResult.Failure failure : applicantDao.addAllToRecruitment(recruitment.getId(), stored).getFailures()) {
+                failed.putIfAbsent(failure.getId(), failure.getCause());
+            }
+            
+            List<BatchResult.Failure> failures = new ArrayList<>();
+            for (int i = 0; i < applicants.size(); i++) {
+                String id = applicants.get(i).getId();
+                if (failed.containsKey(id)) {
+                    failures.add(new BatchResult.Failure(i, id, failed.get(id)));
+                }
+            }
+            return new BatchResult(applicants.size(), failures);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to add applicants to recruitment: " + 
+                                     recruitment.getId(), e);
+        }
+    }
+    
     /**
      * Remove an applicant from a recruitment
      * @param applicant The applicant to remove
@@ -385,6 +517,7 @@ public class RecruitmentService {
                         pstmt.setString(2, recruitment.getId());
                         pstmt.executeUpdate();
                     }
+                    transactionManager.evictAll(Interview.class);
                     
                     // Then delete the application record
                     String deleteApplicationSql = "DELETE FROM applications WHERE applicant_id = ? AND recruitment_id = ?";
@@ -420,6 +553,73 @@ public class RecruitmentService {
         }
     }
     
+    /**
+     * Get the displayed fields of all interviews, for tables that open the full interview on demand
+     * @return List of rows for all interviews
+     * @throws ServiceException if a data access error occurs
+     */
+    public List<InterviewRow> getInterviewRows() {
+        try {
+            return interviewDao.findAllRows();
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get interview rows", e);
+        }
+    }
+    
+    /**
+     * Get one page of interviews, sorted by ID
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws ServiceException if a data access error occurs
+     */
+    public Page<Interview> getInterviewsPage(String afterId, int limit, SortOrder order) {
+        try {
+            return interviewDao.findAll(afterId, limit, order);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get a page of interviews", e);
+        }
+    }
+    
+    /**
+     * Get one page of the interviews for a recruitment, sorted by ID
+     * @param recruitment The recruitment to get interviews for
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws ServiceException if a data access error occurs
+     */
+    public Page<Interview> getInterviewsPageForRecruitment(Recruitment recruitment, String afterId,
+                                                           int limit, SortOrder order) {
+        try {
+            return interviewDao.findByRecruitment(recruitment.getId(), afterId, limit, order);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get a page of interviews for recruitment: " + 
+                                      recruitment.getId(), e);
+        }
+    }
+    
+    /**
+     * Get one page of the interviews for an applicant, sorted by ID
+     * @param applicant The applicant to get interviews for
+     * @param afterId The ID of the last item on the previous page, or null for the first page
+     * @param limit The maximum number of items on the page
+     * @param order The sort order of the IDs
+     * @return The page, with the key to continue from if there are more
+     * @throws ServiceException if a data access error occurs
+     */
+    public Page<Interview> getInterviewsPageForApplicant(Applicant applicant, String afterId,
+                                                         int limit, SortOrder order) {
+        try {
+            return interviewDao.findByApplicant(applicant.getId(), afterId, limit, order);
+        } catch (DataAccessException e) {
+            throw new ServiceException("Failed to get a page of interviews for applicant: " + 
+                                      applicant.getId(), e);
+        }
+    }
+    
     /**
      * Get all scheduled interviews
      * @return List of scheduled interviews
@@ -469,7 +669,7 @@ public class RecruitmentService {
             List<Applicant> recruitmentApplicants = applicantDao.findByRecruitment(recruitment.getId());
             boolean applicantFound = recruitmentApplicants.stream()
                 .anyMatch(a -> a.getId().equals(applicant.getId()));
-                
+            
             if (!applicantFound) {
                 // Add the applicant to the recruitment if not already there
                 addApplicantToRecruitment(applicant, recruitment);
@@ -531,36 +731,16 @@ public class RecruitmentService {
     }
     
     /**
-     * Get the most popular role based on number of applicants
+     * Get the most popular role based on number of applicants; on a tie the lowest role ID wins
      * @return The most popular role, or null if no data available
      */
     public Role getMostPopularRole() {
         try {
-            return transactionManager.executeInTransaction(conn -> {
-                String sql = "SELECT r.role_id, COUNT(app.applicant_id) as applicant_count " +
-                             "FROM recruitments r " +
-                             "JOIN applications app ON r.id = app.recruitment_id " +
-                             "GROUP BY r.role_id " +
-                             "ORDER BY applicant_count DESC " +
-                             "LIMIT 1";
-                
-                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-                    try {
-                        ResultSet rs = pstmt.executeQuery();
-                        
-                        if (rs.next()) {
-                            String roleId = rs.getString("role_id");
-                            Optional<Role> role = roleDao.find(roleId);
-                            return role.orElse(null);
-                        }
-                        return null;
-                    } catch (SQLException e) {
-                        throw new DataAccessException("Error querying for most popular role", e);
-                    }
-                } catch (SQLException e) {
-                    throw new DataAccessException("Error preparing statement for most popular role", e);
-                }
-            });
+            List<LeaderboardEntry<Role>> top = roleDao.findTopByApplicantCount(1);
+            if (top.isEmpty() || top.get(0).getApplicantCount() == 0) {
+                return null;
+            }
+            return top.get(0).getItem();
         } catch (DataAccessException e) {
             throw new ServiceException("Failed to find most popular role", e);
         }
@@ -572,7 +752,7 @@ public class RecruitmentService {
      */
     public double getAverageDaysToAcceptance() {
         try {
-            return transactionManager.executeInTransaction(conn -> {
+            return transactionManager.executeReadOnly(conn -> {
                 String sql = "SELECT AVG(JULIANDAY(offer_acceptance_date) - JULIANDAY(posting_date)) AS avg_days " +
                              "FROM recruitments " +
                              "WHERE status = 'FILLED' AND offer_acceptance_date IS NOT NULL";
@@ -600,7 +780,7 @@ public class RecruitmentService {
      */
     public double getAverageInterviewsPerOffer() {
         try {
-            return transactionManager.executeInTransaction(conn -> {
+            return transactionManager.executeReadOnly(conn -> {
                 String sql = "SELECT AVG(interview_count) AS avg_interviews FROM " +
                             "(SELECT r.id, COUNT(i.id) AS interview_count " +
                             "FROM recruitments r " +
@@ -624,4 +804,193 @@ public class RecruitmentService {
             throw new ServiceException("Failed to calculate average interviews per offer", e);
         }
     }
+    
+    // ========== Async Operations ==========
+    // Each method runs its blocking counterpart on a virtual thread of the transaction manager.
+    // If the counterpart throws, the future completes exceptionally with a CompletionException
+    // that wraps the ServiceException.
+    
+    /** {@link #getAllRoles()} on a virtual thread */
+    public CompletableFuture<List<Role>> getAllRolesAsync() {
+        return transactionManager.supplyAsync(() -> getAllRoles());
+    }
+    
+    /** {@link #addRole(Role)} on a virtual thread */
+    public CompletableFuture<Void> addRoleAsync(Role role) {
+        return transactionManager.runAsync(() -> addRole(role));
+    }
+    
+    /** {@link #createRole(String, String, String)} on a virtual thread */
+    public CompletableFuture<Role> createRoleAsync(String title, String description, String department) {
+        return transactionManager.supplyAsync(() -> createRole(title, description, department));
+    }
+    
+    /** {@link #findRole(long)} on a virtual thread */
+    public CompletableFuture<Optional<Role>> findRoleAsync(long id) {
+        return transactionManager.supplyAsync(() -> findRole(id));
+    }
+    
+    /** {@link #getAllRecruitments()} on a virtual thread */
+    public CompletableFuture<List<Recruitment>> getAllRecruitmentsAsync() {
+        return transactionManager.supplyAsync(() -> getAllRecruitments());
+    }
+    
+    /** {@link #getAllRecruitmentsWithApplicantCounts()} on a virtual thread */
+    public CompletableFuture<List<Recruitment>> getAllRecruitmentsWithApplicantCountsAsync() {
+        return transactionManager.supplyAsync(() -> getAllRecruitmentsWithApplicantCounts());
+    }
+    
+    /** {@link #getRecruitmentRows()} on a virtual thread */
+    public CompletableFuture<List<RecruitmentRow>> getRecruitmentRowsAsync() {
+        return transactionManager.supplyAsync(() -> getRecruitmentRows());
+    }
+    
+    /** {@link #getRecruitmentsPage(String, int, SortOrder)} on a virtual thread */
+    public CompletableFuture<Page<Recruitment>> getRecruitmentsPageAsync(String afterId, int limit, SortOrder order) {
+        return transactionManager.supplyAsync(() -> getRecruitmentsPage(afterId, limit, order));
+    }
+    
+    /** {@link #addRecruitment(Recruitment)} on a virtual thread */
+    public CompletableFuture<Void> addRecruitmentAsync(Recruitment recruitment) {
+        return transactionManager.runAsync(() -> addRecruitment(recruitment));
+    }
+    
+    /** {@link #createRecruitment(Role, LocalDate)} on a virtual thread */
+    public CompletableFuture<Recruitment> createRecruitmentAsync(Role role, LocalDate deadline) {
+        return transactionManager.supplyAsync(() -> createRecruitment(role, deadline));
+    }
+    
+    /** {@link #updateRecruitment(Recruitment)} on a virtual thread */
+    public CompletableFuture<Void> updateRecruitmentAsync(Recruitment recruitment) {
+        return transactionManager.runAsync(() -> updateRecruitment(recruitment));
+    }
+    
+    /** {@link #findRecruitment(String)} on a virtual thread */
+    public CompletableFuture<Optional<Recruitment>> findRecruitmentAsync(String id) {
+        return transactionManager.supplyAsync(() -> findRecruitment(id));
+    }
+    
+    /** {@link #deleteRecruitment(String)} on a virtual thread */
+    public CompletableFuture<Boolean> deleteRecruitmentAsync(String id) {
+        return transactionManager.supplyAsync(() -> deleteRecruitment(id));
+    }
+    
+    /** {@link #findApplicant(String)} on a virtual thread */
+    public CompletableFuture<Optional<Applicant>> findApplicantAsync(String id) {
+        return transactionManager.supplyAsync(() -> findApplicant(id));
+    }
+    
+    /** {@link #getApplicantsForRecruitment(Recruitment)} on a virtual thread */
+    public CompletableFuture<List<Applicant>> getApplicantsForRecruitmentAsync(Recruitment recruitment) {
+        return transactionManager.supplyAsync(() -> getApplicantsForRecruitment(recruitment));
+    }
+    
+    /** {@link #getApplicantsPageForRecruitment(Recruitment, String, int, SortOrder)} on a virtual thread */
+    public CompletableFuture<Page<Applicant>> getApplicantsPageForRecruitmentAsync(Recruitment recruitment, String afterId,
+                                                                                   int limit, SortOrder order) {
+        return transactionManager.supplyAsync(() -> getApplicantsPageForRecruitment(recruitment, afterId, limit, order));
+    }
+    
+    /** {@link #updateApplicantRank(Applicant, int)} on a virtual thread */
+    public CompletableFuture<Void> updateApplicantRankAsync(Applicant applicant, int newRank) {
+        return transactionManager.runAsync(() -> updateApplicantRank(applicant, newRank));
+    }
+    
+    /** {@link #getRankedApplicantsForRecruitment(Recruitment)} on a virtual thread */
+    public CompletableFuture<List<Applicant>> getRankedApplicantsForRecruitmentAsync(Recruitment recruitment) {
+        return transactionManager.supplyAsync(() -> getRankedApplicantsForRecruitment(recruitment));
+    }
+    
+    /** {@link #getUnrankedApplicantsForRecruitment(Recruitment)} on a virtual thread */
+    public CompletableFuture<List<Applicant>> getUnrankedApplicantsForRecruitmentAsync(Recruitment recruitment) {
+        return transactionManager.supplyAsync(() -> getUnrankedApplicantsForRecruitment(recruitment));
+    }
+    
+    /** {@link #addApplicantToRecruitment(Applicant, Recruitment)} on a virtual thread */
+    public CompletableFuture<Void> addApplicantToRecruitmentAsync(Applicant applicant, Recruitment recruitment) {
+        return transactionManager.runAsync(() -> addApplicantToRecruitment(applicant, recruitment));
+    }
+    
+    /** {@link #addApplicantsToRecruitment(List, Recruitment)} on a virtual thread */
+    public CompletableFuture<BatchResult> addApplicantsToRecruitmentAsync(List<Applicant> applicants, Recruitment recruitment) {
+        return transactionManager.supplyAsync(() -> addApplicantsToRecruitment(applicants, recruitment));
+    }
+    
+    /** {@link #removeApplicantFromRecruitment(Applicant, Recruitment)} on a virtual thread */
+    public CompletableFuture<Void> removeApplicantFromRecruitmentAsync(Applicant applicant, Recruitment recruitment) {
+        return transactionManager.runAsync(() -> removeApplicantFromRecruitment(applicant, recruitment));
+    }
+    
+    /** {@link #getAllInterviews()} on a virtual thread */
+    public CompletableFuture<List<Interview>> getAllInterviewsAsync() {
+        return transactionManager.supplyAsync(() -> getAllInterviews());
+    }
+    
+    /** {@link #getInterviewRows()} on a virtual thread */
+    public CompletableFuture<List<InterviewRow>> getInterviewRowsAsync() {
+        return transactionManager.supplyAsync(() -> getInterviewRows());
+    }
+    
+    /** {@link #getInterviewsPage(String, int, SortOrder)} on a virtual thread */
+    public CompletableFuture<Page<Interview>> getInterviewsPageAsync(String afterId, int limit, SortOrder order) {
+        return transactionManager.supplyAsync(() -> getInterviewsPage(afterId, limit, order));
+    }
+    
+    /** {@link #getInterviewsPageForRecruitment(Recruitment, String, int, SortOrder)} on a virtual thread */
+    public CompletableFuture<Page<Interview>> getInterviewsPageForRecruitmentAsync(Recruitment recruitment, String afterId,
+                                                                                   int limit, SortOrder order) {
+        return transactionManager.supplyAsync(() -> getInterviewsPageForRecruitment(recruitment, afterId, limit, order));
+    }
+    
+    /** {@link #getInterviewsPageForApplicant(Applicant, String, int, SortOrder)} on a virtual thread */
+    public CompletableFuture<Page<Interview>> getInterviewsPageForApplicantAsync(Applicant applicant, String afterId,
+                                                                                 int limit, SortOrder order) {
+        return transactionManager.supplyAsync(() -> getInterviewsPageForApplicant(applicant, afterId, limit, order));
+    }
+    
+    /** {@link #getInterviewSchedule()} on a virtual thread */
+    public CompletableFuture<List<Interview>> getInterviewScheduleAsync() {
+        return transactionManager.supplyAsync(() -> getInterviewSchedule());
+    }
+    
+    /** {@link #findInterview(String)} on a virtual thread */
+    public CompletableFuture<Optional<Interview>> findInterviewAsync(String id) {
+        return transactionManager.supplyAsync(() -> findInterview(id));
+    }
+    
+    /** {@link #scheduleInterview(Recruitment, Applicant, LocalDateTime, String, String)} on a virtual thread */
+    public CompletableFuture<Interview> scheduleInterviewAsync(Recruitment recruitment, Applicant applicant,
+                                                               LocalDateTime dateTime, String location, String interviewer) {
+        return transactionManager.supplyAsync(() -> scheduleInterview(recruitment, applicant, dateTime, location, interviewer));
+    }
+    
+    /** {@link #rescheduleInterview(Interview, LocalDateTime)} on a virtual thread */
+    public CompletableFuture<Void> rescheduleInterviewAsync(Interview interview, LocalDateTime newDateTime) {
+        return transactionManager.runAsync(() -> rescheduleInterview(interview, newDateTime));
+    }
+    
+    /** {@link #cancelInterview(Interview)} on a virtual thread */
+    public CompletableFuture<Void> cancelInterviewAsync(Interview interview) {
+        return transactionManager.runAsync(() -> cancelInterview(interview));
+    }
+    
+    /** {@link #updateInterview(Interview)} on a virtual thread */
+    public CompletableFuture<Void> updateInterviewAsync(Interview interview) {
+        return transactionManager.runAsync(() -> updateInterview(interview));
+    }
+    
+    /** {@link #getMostPopularRole()} on a virtual thread */
+    public CompletableFuture<Role> getMostPopularRoleAsync() {
+        return transactionManager.supplyAsync(() -> getMostPopularRole());
+    }
+    
+    /** {@link #getAverageDaysToAcceptance()} on a virtual thread */
+    public CompletableFuture<Double> getAverageDaysToAcceptanceAsync() {
+        return transactionManager.supplyAsync(() -> getAverageDaysToAcceptance());
+    }
+    
+    /** {@link #getAverageInterviewsPerOffer()} on a virtual thread */
+    public CompletableFuture<Double> getAverageInterviewsPerOfferAsync() {
+        return transactionManager.supplyAsync(() -> getAverageInterviewsPerOffer());
+    }
 }
@@ -2,44 +2,70 @@ package se.lu.ics.service;
 
 import java.time.LocalDate;
 import java.time.Period;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import se.lu.ics.dao.ApplicantDao;
 import se.lu.ics.dao.InterviewDao;
 import se.lu.ics.dao.RecruitmentDao;
+import se.lu.ics.dao.ResultCache;
+import se.lu.ics.dao.RoleDao;
 import se.lu.ics.dao.TransactionManager;
 import se.lu.ics.model.Applicant;
 import se.lu.ics.model.Interview;
 import se.lu.ics.model.InterviewStatus;
+import se.lu.ics.model.LeaderboardEntry;
 import se.lu.ics.model.Recruitment;
 import se.lu.ics.model.RecruitmentStatus;
 import se.lu.ics.model.Role;
 
 /**
  * Service for generating recruitment reports and analytics.
+ * Each report runs in one read-only transaction, so all of its queries share a snapshot and a reader connection.
+ * Every report also has an ...Async variant that runs it on a virtual thread.
+ * Results are cached per report and parameters until the data version of the transaction manager
+ * moves on, i.e. until a write commits or another process changes the database, so showing a report
+ * again costs nothing while the data is unchanged. Cached report maps are shared and unmodifiable;
+ * recruitments and roles are copied for every caller.
  */
 public class ReportService {
+    private final RoleDao roleDao;
     private final RecruitmentDao recruitmentDao;
     private final ApplicantDao applicantDao;
     private final InterviewDao interviewDao;
     private final TransactionManager transactionManager;
+    private final ResultCache reports;
     
     /**
      * Constructor with dependency injection
+     * @param roleDao The role DAO
      * @param recruitmentDao The recruitment DAO
      * @param applicantDao The applicant DAO
      * @param interviewDao The interview DAO
      * @param transactionManager The transaction manager
      */
-    public ReportService(RecruitmentDao recruitmentDao, ApplicantDao applicantDao, 
+    public ReportService(RoleDao roleDao, RecruitmentDao recruitmentDao, ApplicantDao applicantDao, 
                          InterviewDao interviewDao, TransactionManager transactionManager) {
+        this.roleDao = roleDao;
         this.recruitmentDao = recruitmentDao;
         this.applicantDao = applicantDao;
         this.interviewDao = interviewDao;
         this.transactionManager = transactionManager;
+        this.reports = new ResultCache(transactionManager, "reports");
+    }
+    
+    /**
+     * Get the cache of computed reports, e.g. for its statistics
+     * @return The report cache
+     */
+    public ResultCache getReportCache() {
+        return reports;
     }
     
     /**
@@ -47,50 +73,73 @@ public class ReportService {
      * @return Map containing summary statistics
      */
     public Map<String, Object> generateSummaryReport() {
-        Map<String, Object> report = new HashMap<>();
-        
-        List<Recruitment> allRecruitments = recruitmentDao.findAll();
-        report.put("totalRecruitments", allRecruitments.size());
-        
-        // Count by status
-        Map<RecruitmentStatus, Long> recruitmentsByStatus = allRecruitments.stream()
-            .collect(Collectors.groupingBy(Recruitment::getStatus, Collectors.counting()));
-        report.put("recruitmentsByStatus", recruitmentsByStatus);
-        
-        // Average time to fill (for completed recruitments)
-        List<Recruitment> completedRecruitments = allRecruitments.stream()
-            .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
-            .collect(Collectors.toList());
-        
-        if (!completedRecruitments.isEmpty()) {
-            double avgDaysToFill = completedRecruitments.stream()
-                .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
-                .average()
-                .orElse(0);
-            report.put("avgDaysToFill", avgDaysToFill);
-        } else {
-            report.put("avgDaysToFill", 0);
-        }
-        
-        // Count applicants
-        int totalApplicants = applicantDao.countAll();
-        report.put("totalApplicants", totalApplicants);
-        
-        if (!allRecruitments.isEmpty() && totalApplicants > 0) {
-            report.put("avgApplicantsPerRecruitment", (double) totalApplicants / allRecruitments.size());
-        } else {
-            report.put("avgApplicantsPerRecruitment", 0);
-        }
-        
-        return report;
+        return reports.get(List.of("summaryReport"), () -> transactionManager.executeReadOnly(conn -> {
+            Map<String, Object> report = new HashMap<>();
+            
+            List<Recruitment> allRecruitments = recruitmentDao.findAll();
+            report.put("totalRecruitments", allRecruitments.size());
+            
+            // Count by status
+            Map<RecruitmentStatus, Long> recruitmentsByStatus = allRecruitments.stream()
+                .collect(Collectors.groupingBy(Recruitment::getStatus, Collectors.counting()));
+            report.put("recruitmentsByStatus", recruitmentsByStatus);
+            
+            // Average time to fill (for completed recruitments)
+            List<Recruitment> completedRecruitments = allRecruitments.stream()
+                .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
+                .collect(Collectors.toList());
+            
+            if (!completedRecruitments.isEmpty()) {
+                double avgDaysToFill = completedRecruitments.stream()
+                    .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
+                    .average()
+                    .orElse(0);
+                report.put("avgDaysToFill", avgDaysToFill);
+            } else {
+                report.put("avgDaysToFill", 0);
+            }
+            
+            // Count applicants
+            int totalApplicants = applicantDao.countAll();
+            report.put("totalApplicants", totalApplicants);
+            
+            if (!allRecruitments.isEmpty() && totalApplicants > 0) {
+                report.put("avgApplicantsPerRecruitment", (double) totalApplicants / allRecruitments.size());
+            } else {
+                report.put("avgApplicantsPerRecruitment", 0);
+            }
+            
+            return freeze(report);
+        }));
     }
     
     /**
-     * Generate a detailed report for a specific recruitment
+     * Generate a detailed report for a specific recruitment.
+     * The report is made from the stored recruitment with the same ID, so a cached report never
+     * depends on the caller's copy; a recruitment that is not stored is reported as given, without caching.
      * @param recruitment The recruitment to generate a report for
      * @return Map containing detailed statistics
      */
     public Map<String, Object> generateRecruitmentReport(Recruitment recruitment) {
+        // Days active counts up to today, so a report made yesterday is stale
+        LocalDate today = LocalDate.now();
+        Map<String, Object> report = reports.get(List.of("recruitmentReport", recruitment.getId(), today),
+                () -> transactionManager.executeReadOnly(conn -> recruitmentDao.find(recruitment.getId())
+                        .map(stored -> buildRecruitmentReport(stored, today))
+                        .orElse(null)));
+        if (report != null) {
+            return report;
+        }
+        return transactionManager.executeReadOnly(conn -> buildRecruitmentReport(recruitment, today));
+    }
+    
+    /**
+     * Build the report of a recruitment; runs in the caller's transaction
+     * @param recruitment The recruitment to report on
+     * @param today The day that days active counts up to
+     * @return Unmodifiable map containing detailed statistics
+     */
+    private Map<String, Object> buildRecruitmentReport(Recruitment recruitment, LocalDate today) {
         Map<String, Object> report = new HashMap<>();
         
         report.put("recruitmentId", recruitment.getId());
@@ -118,13 +167,12 @@ public class ReportService {
         report.put("interviewsByStatus", interviewsByStatus);
         
         // Calculate days active
-        LocalDate today = LocalDate.now();
         int daysActive = Period.between(recruitment.getPostingDate(), 
                                       recruitment.getOfferAcceptanceDate() != null ? 
                                       recruitment.getOfferAcceptanceDate() : today).getDays();
         report.put("daysActive", daysActive);
         
-        return report;
+        return freeze(report);
     }
     
     /**
@@ -132,47 +180,49 @@ public class ReportService {
      * @return Map of department names to their statistics
      */
     public Map<String, Map<String, Object>> generateDepartmentReport() {
-        Map<String, Map<String, Object>> report = new HashMap<>();
-        
-        // Group recruitments by department
-        List<Recruitment> allRecruitments = recruitmentDao.findAll();
-        
-        Map<String, List<Recruitment>> recruitmentsByDept = allRecruitments.stream()
-            .collect(Collectors.groupingBy(r -> r.getRole().getDepartment()));
-        
-        // For each department, calculate statistics
-        for (Map.Entry<String, List<Recruitment>> entry : recruitmentsByDept.entrySet()) {
-            String department = entry.getKey();
-            List<Recruitment> deptRecruitments = entry.getValue();
-            
-            Map<String, Object> deptStats = new HashMap<>();
-            deptStats.put("recruitmentCount", deptRecruitments.size());
+        return reports.get(List.of("departmentReport"), () -> transactionManager.executeReadOnly(conn -> {
+            Map<String, Map<String, Object>> report = new HashMap<>();
             
-            // Count open recruitments
-            long openCount = deptRecruitments.stream()
-                .filter(r -> r.getStatus() == RecruitmentStatus.OPEN)
-                .count();
-            deptStats.put("openRecruitments", openCount);
+            // Group recruitments by department
+            List<Recruitment> allRecruitments = recruitmentDao.findAll();
             
-            // Calculate average fill time for completed recruitments
-            List<Recruitment> completedRecruitments = deptRecruitments.stream()
-                .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
-                .collect(Collectors.toList());
+            Map<String, List<Recruitment>> recruitmentsByDept = allRecruitments.stream()
+                .collect(Collectors.groupingBy(r -> r.getRole().getDepartment()));
             
-            if (!completedRecruitments.isEmpty()) {
-                double avgDaysToFill = completedRecruitments.stream()
-                    .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
-                    .average()
-                    .orElse(0);
-                deptStats.put("avgDaysToFill", avgDaysToFill);
-            } else {
-                deptStats.put("avgDaysToFill", 0);
+            // For each department, calculate statistics
+            for (Map.Entry<String, List<Recruitment>> entry : recruitmentsByDept.entrySet()) {
+                String department = entry.getKey();
+                List<Recruitment> deptRecruitments = entry.getValue();
+                
+                Map<String, Object> deptStats = new HashMap<>();
+                deptStats.put("recruitmentCount", deptRecruitments.size());
+                
+                // Count open recruitments
+                long openCount = deptRecruitments.stream()
+                    .filter(r -> r.getStatus() == RecruitmentStatus.OPEN)
+                    .count();
+                deptStats.put("openRecruitments", openCount);
+                
+                // Calculate average fill time for completed recruitments
+                List<Recruitment> completedRecruitments = deptRecruitments.stream()
+                    .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
+                    .collect(Collectors.toList());
+                
+                if (!completedRecruitments.isEmpty()) {
+                    double avgDaysToFill = completedRecruitments.stream()
+                        .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
+                        .average()
+                        .orElse(0);
+                    deptStats.put("avgDaysToFill", avgDaysToFill);
+                } else {
+                    deptStats.put("avgDaysToFill", 0);
+                }
+                
+                report.put(department, deptStats);
             }
             
-            report.put(department, deptStats);
-        }
-        
-        return report;
+            return freeze(report);
+        }));
     }
     
     /**
@@ -180,74 +230,61 @@ public class ReportService {
      * @return The recruitment with the shortest time to fill, or null if none found
      */
     public Recruitment getMostEfficientRecruitment() {
-        List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
-            .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
-            .collect(Collectors.toList());
-        
-        if (completedRecruitments.isEmpty()) {
-            return null;
-        }
-        
-        return completedRecruitments.stream()
-            .reduce((r1, r2) -> {
-                int days1 = Period.between(r1.getPostingDate(), r1.getOfferAcceptanceDate()).getDays();
-                int days2 = Period.between(r2.getPostingDate(), r2.getOfferAcceptanceDate()).getDays();
-                return days1 < days2 ? r1 : r2;
-            })
-            .orElse(null);
+        return reports.get(List.of("mostEfficientRecruitment"), () -> transactionManager.executeReadOnly(conn -> {
+            List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
+                .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
+                .collect(Collectors.toList());
+            
+            if (completedRecruitments.isEmpty()) {
+                return null;
+            }
+            
+            return completedRecruitments.stream()
+                .reduce((r1, r2) -> {
+                    int days1 = Period.between(r1.getPostingDate(), r1.getOfferAcceptanceDate()).getDays();
+                    int days2 = Period.between(r2.getPostingDate(), r2.getOfferAcceptanceDate()).getDays();
+                    return days1 < days2 ? r1 : r2;
+                })
+                .orElse(null);
+        }), ReportService::copy);
     }
     
     /**
-     * Get the recruitment with the most applicants
-     * @return The recruitment with the most applicants, or null if none found
+     * Get the recruitment with the most applicants; on a tie the one with the lowest ID wins
+     * @return The recruitment with the most applicants, with its applicant count set, or null if none found
      */
     public Recruitment getMostPopularRecruitment() {
-        List<Recruitment> allRecruitments = recruitmentDao.findAll();
-        
-        if (allRecruitments.isEmpty()) {
-            return null;
-        }
-        
-        return allRecruitments.stream()
-            .reduce((r1, r2) -> {
-                int count1 = applicantDao.findByRecruitment(r1.getId()).size();
-                int count2 = applicantDao.findByRecruitment(r2.getId()).size();
-                return count1 > count2 ? r1 : r2;
-            })
-            .orElse(null);
+        List<LeaderboardEntry<Recruitment>> top = getRecruitmentLeaderboard(1);
+        return top.isEmpty() ? null : top.get(0).getItem();
+    }
+    
+    /**
+     * Get the recruitments with the most applicants, ranked in the database
+     * @param limit The maximum number of entries
+     * @return The leaderboard, most applicants first; ties share a rank and are listed by ascending ID
+     */
+    public List<LeaderboardEntry<Recruitment>> getRecruitmentLeaderboard(int limit) {
+        return reports.get(List.of("recruitmentLeaderboard", limit), () -> recruitmentDao.findTopByApplicantCount(limit),
+                           entries -> copyEntries(entries, ReportService::copy));
+    }
+    
+    /**
+     * Get the roles with the most applicants across their recruitments, ranked in the database
+     * @param limit The maximum number of entries
+     * @return The leaderboard, most applicants first; ties share a rank and are listed by ascending role ID
+     */
+    public List<LeaderboardEntry<Role>> getRoleLeaderboard(int limit) {
+        return reports.get(List.of("roleLeaderboard", limit), () -> roleDao.findTopByApplicantCount(limit),
+                           entries -> copyEntries(entries, ReportService::copy));
     }
     
     /**
-     * Get the most popular role (with most applicants across all recruitments)
-     * @return The most popular role
+     * Get the most popular role (with most applicants across all recruitments); on a tie the lowest role ID wins
+     * @return The most popular role, or null if there are no recruitments
      */
     public Role getMostPopularRole() {
-        // Get all recruitments
-        List<Recruitment> allRecruitments = recruitmentDao.findAll();
-        
-        if (allRecruitments.isEmpty()) {
-            return null;
-        }
-        
-        // Count applicants by role
-        Map<Role, Integer> applicantsByRole = new HashMap<>();
-        
-        for (Recruitment recruitment : allRecruitments) {
-            Role role = recruitment.getRole();
-            int count = applicantDao.findByRecruitment(recruitment.getId()).size();
-            
-            applicantsByRole.merge(role, count, Integer::sum);
-        }
-        
-        // Find the role with the most applicants
-        if (applicantsByRole.isEmpty()) {
-            return null;
-        }
-        
-        return applicantsByRole.entrySet().stream()
-            .max(Map.Entry.comparingByValue())
-            .map(Map.Entry::getKey)
-            .orElse(null);
+        List<LeaderboardEntry<Role>> top = getRoleLeaderboard(1);
+        return top.isEmpty() ? null : top.get(0).getItem();
     }
     
     /**
@@ -255,20 +292,22 @@ public class ReportService {
      * @return The average days to acceptance, or 0 if no data available
      */
     public double getAverageDaysToAcceptance() {
-        // Get completed recruitments
-        List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
-            .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
-            .collect(Collectors.toList());
-        
-        // Calculate average time to fill
-        if (!completedRecruitments.isEmpty()) {
-            return completedRecruitments.stream()
-                .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
-                .average()
-                .orElse(0);
-        }
-        
-        return 0.0;
+        return reports.get(List.of("averageDaysToAcceptance"), () -> transactionManager.executeReadOnly(conn -> {
+            // Get completed recruitments
+            List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
+                .filter(r -> r.getStatus() == RecruitmentStatus.FILLED && r.getOfferAcceptanceDate() != null)
+                .collect(Collectors.toList());
+            
+            // Calculate average time to fill
+            if (!completedRecruitments.isEmpty()) {
+                return completedRecruitments.stream()
+                    .mapToLong(r -> Period.between(r.getPostingDate(), r.getOfferAcceptanceDate()).getDays())
+                    .average()
+                    .orElse(0);
+            }
+            
+            return 0.0;
+        }));
     }
     
     /**
@@ -276,22 +315,127 @@ public class ReportService {
      * @return The average number of interviews, or 0 if no data available
      */
     public double getAverageInterviewsPerOffer() {
-        // Get completed recruitments
-        List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
-            .filter(r -> r.getStatus() == RecruitmentStatus.FILLED)
-            .collect(Collectors.toList());
-        
-        if (completedRecruitments.isEmpty()) {
-            return 0.0;
-        }
-        
-        // Count total interviews for filled positions
-        int totalInterviews = 0;
-        for (Recruitment recruitment : completedRecruitments) {
-            totalInterviews += interviewDao.findByRecruitment(recruitment.getId()).size();
+        return reports.get(List.of("averageInterviewsPerOffer"), () -> transactionManager.executeReadOnly(conn -> {
+            // Get completed recruitments
+            List<Recruitment> completedRecruitments = recruitmentDao.findAll().stream()
+                .filter(r -> r.getStatus() == RecruitmentStatus.FILLED)
+                .collect(Collectors.toList());
+            
+            if (completedRecruitments.isEmpty()) {
+                return 0.0;
+            }
+            
+            // Count total interviews for filled positions
+            int totalInterviews = 0;
+            for (Recruitment recruitment : completedRecruitments) {
+                totalInterviews += interviewDao.findByRecruitment(recruitment.getId()).size();
+            }
+            
+            // Calculate average
+            return (double) totalInterviews / completedRecruitments.size();
+        }));
+    }
+    
+    /**
+     * Make a report and the maps nested in it unmodifiable, since a cached report is shared by every caller
+     * @param report The report, with immutable values apart from nested maps
+     * @return The unmodifiable report
+     */
+    @SuppressWarnings("unchecked")
+    private static <K, V> Map<K, V> freeze(Map<K, V> report) {
+        report.replaceAll((key, value) -> value instanceof Map ? (V) freeze((Map<Object, Object>) value) : value);
+        return Collections.unmodifiableMap(report);
+    }
+    
+    /**
+     * Copy the entries of a cached leaderboard for a caller
+     * @param <T> The ranked item
+     * @param entries The cached entries
+     * @param copier Copies an item
+     * @return New entries holding copies of the items
+     */
+    private static <T> List<LeaderboardEntry<T>> copyEntries(List<LeaderboardEntry<T>> entries, UnaryOperator<T> copier) {
+        List<LeaderboardEntry<T>> copies = new ArrayList<>(entries.size());
+        for (LeaderboardEntry<T> entry : entries) {
+            copies.add(new LeaderboardEntry<>(entry.getRank(), copier.apply(entry.getItem()), entry.getApplicantCount()));
         }
-        
-        // Calculate average
-        return (double) totalInterviews / completedRecruitments.size();
+        return copies;
+    }
+    
+    /**
+     * Copy a cached recruitment together with its role for a caller
+     * @param recruitment The cached recruitment
+     * @return The copy
+     */
+    private static Recruitment copy(Recruitment recruitment) {
+        Recruitment copy = new Recruitment(recruitment.getId(), copy(recruitment.getRole()), recruitment.getPostingDate(),
+                                           recruitment.getApplicationDeadline(), recruitment.getOfferAcceptanceDate(),
+                                           recruitment.getStatus());
+        copy.setApplicantCount(recruitment.getApplicantCount());
+        return copy;
+    }
+    
+    /**
+     * Copy a cached role for a caller
+     * @param role The cached role
+     * @return The copy
+     */
+    private static Role copy(Role role) {
+        return new Role(role.getId(), role.getTitle(), role.getDescription(), role.getDepartment());
+    }
+    
+    // ========== Async Operations ==========
+    // Each method runs its blocking counterpart on a virtual thread of the transaction manager.
+    // If the counterpart throws, the future completes exceptionally with a CompletionException
+    // that wraps its exception, usually a DataAccessException.
+    
+    /** {@link #generateSummaryReport()} on a virtual thread */
+    public CompletableFuture<Map<String, Object>> generateSummaryReportAsync() {
+        return transactionManager.supplyAsync(() -> generateSummaryReport());
+    }
+    
+    /** {@link #generateRecruitmentReport(Recruitment)} on a virtual thread */
+    public CompletableFuture<Map<String, Object>> generateRecruitmentReportAsync(Recruitment recruitment) {
+        return transactionManager.supplyAsync(() -> generateRecruitmentReport(recruitment));
+    }
+    
+    /** {@link #generateDepartmentReport()} on a virtual thread */
+    public CompletableFuture<Map<String, Map<String, Object>>> generateDepartmentReportAsync() {
+        return transactionManager.supplyAsync(() -> generateDepartmentReport());
+    }
+    
+    /** {@link #getMostEfficientRecruitment()} on a virtual thread */
+    public CompletableFuture<Recruitment> getMostEfficientRecruitmentAsync() {
+        return transactionManager.supplyAsync(() -> getMostEfficientRecruitment());
+    }
+    
+    /** {@link #getMostPopularRecruitment()} on a virtual thread */
+    public CompletableFuture<Recruitment> getMostPopularRecruitmentAsync() {
+        return transactionManager.supplyAsync(() -> getMostPopularRecruitment());
+    }
+    
+    /** {@link #getMostPopularRole()} on a virtual thread */
+    public CompletableFuture<Role> getMostPopularRoleAsync() {
+        return transactionManager.supplyAsync(() -> getMostPopularRole());
+    }
+    
+    /** {@link #getRecruitmentLeaderboard(int)} on a virtual thread */
+    public CompletableFuture<List<LeaderboardEntry<Recruitment>>> getRecruitmentLeaderboardAsync(int limit) {
+        return transactionManager.supplyAsync(() -> getRecruitmentLeaderboard(limit));
+    }
+    
+    /** {@link #getRoleLeaderboard(int)} on a virtual thread */
+    public CompletableFuture<List<LeaderboardEntry<Role>>> getRoleLeaderboardAsync(int limit) {
+        return transactionManager.supplyAsync(() -> getRoleLeaderboard(limit));
+    }
+    
+    /** {@link #getAverageDaysToAcceptance()} on a virtual thread */
+    public CompletableFuture<Double> getAverageDaysToAcceptanceAsync() {
+        return transactionManager.supplyAsync(() -> getAverageDaysToAcceptance());
+    }
+    
+    /** {@link #getAverageInterviewsPerOffer()} on a virtual thread */
+    public CompletableFuture<Double> getAverageInterviewsPerOfferAsync() {
+        return transactionManager.supplyAsync(() -> getAverageInterviewsPerOffer());
     }
-} 
\ No newline at end of file
+}
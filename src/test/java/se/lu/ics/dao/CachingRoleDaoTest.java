@@ -0,0 +1,139 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.model.Role;
+
+/**
+ * Tests that the role cache never keeps a role loaded while the role was being changed
+ */
+class CachingRoleDaoTest {
+    
+    @TempDir
+    Path dir;
+    
+    private String url;
+    private TransactionManager transactionManager;
+    private CachingRoleDao roleDao;
+    /** Runs inside each load of the wrapped DAO, after the cache has decided to load */
+    private Runnable duringLoad = () -> { };
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + dir.resolve("test.db");
+        execute("CREATE TABLE roles (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, " +
+                "description TEXT, department TEXT)");
+        execute("INSERT INTO roles (title, description, department) VALUES ('Driver', 'Drives', 'Logistics')");
+        
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        transactionManager = new TransactionManager(dataSource);
+        RoleDao jdbc = new RoleDaoJdbc(transactionManager) {
+            @Override
+            public Optional<Role> find(String id) {
+                Optional<Role> role = super.find(id);
+                duringLoad.run();
+                return role;
+            }
+            
+            @Override
+            public List<Role> findAll() {
+                List<Role> roles = super.findAll();
+                duringLoad.run();
+                return roles;
+            }
+        };
+        roleDao = new CachingRoleDao(jdbc, transactionManager);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        transactionManager.close();
+    }
+    
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+    
+    private String title() {
+        return roleDao.find("1").orElseThrow().getTitle();
+    }
+    
+    @Test
+    void loadOverlappingAChangeIsNotCached() {
+        // The row changes after the old one was read but before the load finished
+        duringLoad = () -> {
+            duringLoad = () -> { };
+            roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+        };
+        assertEquals("Driver", title());
+        
+        assertEquals("Pilot", title());
+        assertEquals(2, roleDao.getStats().getMissCount());
+        assertEquals("Pilot", title());
+        assertEquals(1, roleDao.getStats().getHitCount());
+    }
+    
+    @Test
+    void findAllOverlappingAChangeIsNotCached() {
+        duringLoad = () -> {
+            duringLoad = () -> { };
+            roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+        };
+        assertEquals("Driver", roleDao.findAll().get(0).getTitle());
+        
+        assertEquals("Pilot", roleDao.findAll().get(0).getTitle());
+        assertEquals("Pilot", title());
+    }
+    
+    @Test
+    void roleLoadedBeforeACommitIsDroppedByTheCommit() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        Thread writer = new Thread(() -> transactionManager.executeInTransaction(conn -> {
+            roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+            written.countDown();
+            try {
+                loaded.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        writer.start();
+        
+        // Reloads the committed row while the update is still uncommitted, after its first invalidation
+        written.await();
+        assertEquals("Driver", title());
+        loaded.countDown();
+        writer.join();
+        
+        assertEquals("Pilot", title());
+    }
+    
+    @Test
+    void changingAReturnedRoleDoesNotChangeTheCache() {
+        roleDao.find("1").orElseThrow().setTitle("Changed");
+        
+        assertEquals("Driver", title());
+        assertEquals("Driver", roleDao.findAll().get(0).getTitle());
+    }
+}
@@ -0,0 +1,138 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.model.Role;
+
+/**
+ * Tests that commits made by another connection are detected and invalidate the caches
+ */
+class DataVersionMonitorTest {
+    
+    @TempDir
+    Path dir;
+    
+    private String url;
+    private TransactionManager transactionManager;
+    private CachingRoleDao roleDao;
+    private DataVersionMonitor monitor;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + dir.resolve("test.db");
+        execute("CREATE TABLE roles (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, " +
+                "description TEXT, department TEXT)");
+        execute("INSERT INTO roles (title, description, department) VALUES ('Driver', 'Drives', 'Logistics')");
+        
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        transactionManager = new TransactionManager(dataSource);
+        roleDao = new CachingRoleDao(new RoleDaoJdbc(transactionManager), transactionManager);
+        // Polled by hand, so the interval never elapses during a test
+        monitor = new DataVersionMonitor(dataSource, transactionManager, 60_000);
+        monitor.poll();
+    }
+    
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+        transactionManager.close();
+    }
+    
+    /**
+     * Run a statement on a connection of its own, as another process would
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate(sql);
+        }
+    }
+    
+    private String title() {
+        return roleDao.find("1").orElseThrow().getTitle();
+    }
+    
+    @Test
+    void pollWithoutCommitsFindsNoChange() {
+        assertFalse(monitor.poll());
+        assertFalse(monitor.poll());
+        assertEquals(0, monitor.getChangeCount());
+    }
+    
+    @Test
+    void commitFromSecondConnectionInvalidatesCaches() throws SQLException {
+        assertEquals("Driver", roleDao.find("1").orElseThrow().getTitle());
+        
+        execute("UPDATE roles SET title = 'Pilot' WHERE id = 1");
+        // The cache cannot know about the outside commit until the monitor sees it
+        assertEquals("Driver", roleDao.find("1").orElseThrow().getTitle());
+        
+        assertTrue(monitor.poll());
+        assertEquals("Pilot", roleDao.find("1").orElseThrow().getTitle());
+        assertEquals(1, monitor.getChangeCount());
+        assertFalse(monitor.poll());
+    }
+    
+    @Test
+    void changeBumpsDataVersionAndNotifiesListeners() throws SQLException {
+        AtomicReference<DataVersionMonitor.Snapshot> seen = new AtomicReference<>();
+        monitor.addListener(seen::set);
+        long before = transactionManager.getDataVersion();
+        
+        execute("DELETE FROM roles WHERE id = 1");
+        
+        assertTrue(monitor.poll());
+        assertTrue(transactionManager.getDataVersion() > before);
+        assertNotNull(seen.get());
+        assertEquals(1, seen.get().getChangeCount());
+        assertNotNull(seen.get().getDetectedAt());
+    }
+    
+    @Test
+    void localWriteIsNotReportedAsAChange() {
+        roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+        assertEquals("Pilot", title());
+        
+        assertFalse(monitor.poll());
+        assertEquals(0, monitor.getChangeCount());
+        // Still cached: the monitor did not invalidate it
+        long misses = roleDao.getStats().getMissCount();
+        assertEquals("Pilot", title());
+        assertEquals(misses, roleDao.getStats().getMissCount());
+    }
+    
+    @Test
+    void outsideCommitBeforeALocalWriteIsStillReported() throws SQLException {
+        execute("INSERT INTO roles (title, description, department) VALUES ('Mechanic', 'Repairs', 'Workshop')");
+        roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+        
+        assertTrue(monitor.poll());
+        assertFalse(monitor.poll());
+    }
+    
+    @Test
+    void outsideCommitAfterALocalWriteIsStillReported() throws SQLException {
+        roleDao.update(new Role("1", "Pilot", "Flies", "Logistics"));
+        execute("UPDATE roles SET description = 'Flies far' WHERE id = 1");
+        
+        assertTrue(monitor.poll());
+        assertEquals("Flies far", roleDao.find("1").orElseThrow().getDescription());
+    }
+}
@@ -0,0 +1,167 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.exception.DataAccessException;
+
+/**
+ * Tests that writes sharing a group commit fail on their own
+ */
+class GroupCommitTest {
+    
+    @TempDir
+    Path dir;
+    
+    private String url;
+    private TransactionManager transactionManager;
+    
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        url = "jdbc:sqlite:" + dir.resolve("test.db");
+        dataSource.setUrl(url);
+        // Fail at once on a lock, so only the retry policy decides how long a write waits
+        dataSource.setBusyTimeout(0);
+        transactionManager = new TransactionManager(dataSource);
+        transactionManager.executeInTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT NOT NULL UNIQUE)");
+                stmt.executeUpdate("INSERT INTO items (name) VALUES ('taken')");
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to create the schema", e);
+            }
+            return null;
+        });
+        // A long window, so that writes submitted together are sure to share a commit
+        transactionManager.enableGroupCommit(200, 64);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        transactionManager.close();
+    }
+    
+    private void insert(Connection conn, String name) {
+        try (PreparedStatement stmt = conn.prepareStatement("INSERT INTO items (name) VALUES (?)")) {
+            stmt.setString(1, name);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to insert " + name, e);
+        }
+    }
+    
+    private List<String> names() {
+        return transactionManager.executeReadOnly(conn -> {
+            List<String> names = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT name FROM items ORDER BY name")) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to read the items", e);
+            }
+            return names;
+        });
+    }
+    
+    @Test
+    void failingWritesDoNotRollBackTheOthers() {
+        List<CompletableFuture<String>> writes = new ArrayList<>();
+        for (String name : List.of("a", "b", "c", "d", "e")) {
+            writes.add(transactionManager.executeInTransactionAsync(conn -> {
+                if (name.equals("b")) {
+                    // Fails after writing, so its own insert must be undone
+                    insert(conn, name);
+                    throw new IllegalStateException("write b failed");
+                }
+                // Violates the unique name
+                insert(conn, name.equals("d") ? "taken" : name);
+                return name;
+            }));
+        }
+        
+        assertEquals("a", writes.get(0).join());
+        assertEquals("c", writes.get(2).join());
+        assertEquals("e", writes.get(4).join());
+        CompletionException failedB = assertThrows(CompletionException.class, () -> writes.get(1).join());
+        assertInstanceOf(DataAccessException.class, failedB.getCause());
+        assertInstanceOf(IllegalStateException.class, failedB.getCause().getCause());
+        CompletionException failedD = assertThrows(CompletionException.class, () -> writes.get(3).join());
+        assertInstanceOf(DataAccessException.class, failedD.getCause());
+        
+        assertEquals(List.of("a", "c", "e", "taken"), names());
+        WriteQueue queue = transactionManager.getWriteQueue();
+        assertTrue(queue.getAverageBatchSize() > 1, "the writes should have shared a commit: " + queue);
+        assertEquals(2, queue.getFailedCount());
+    }
+    
+    @Test
+    void callerOfFailingWriteGetsItsOwnException() {
+        DataAccessException thrown = assertThrows(DataAccessException.class,
+                () -> transactionManager.executeInTransaction(conn -> {
+                    insert(conn, "x");
+                    throw new IllegalStateException("write x failed");
+                }));
+        assertEquals("write x failed", thrown.getCause().getMessage());
+        
+        transactionManager.executeInTransaction(conn -> {
+            insert(conn, "y");
+            return null;
+        });
+        assertEquals(List.of("taken", "y"), names());
+    }
+    
+    @Test
+    void busyDatabaseRetriesTheWholeGroup() throws Exception {
+        transactionManager.setRetryPolicy(new RetryPolicy(10, 50, 5_000));
+        try (Connection locker = DriverManager.getConnection(url)) {
+            try (Statement stmt = locker.createStatement()) {
+                stmt.execute("BEGIN EXCLUSIVE");
+            }
+            List<CompletableFuture<String>> writes = new ArrayList<>();
+            for (String name : List.of("a", "b", "c")) {
+                writes.add(transactionManager.executeInTransactionAsync(conn -> {
+                    insert(conn, name);
+                    return name;
+                }));
+            }
+            // Let the group hit the lock a few times before releasing it
+            Thread.sleep(300);
+            try (Statement stmt = locker.createStatement()) {
+                stmt.execute("COMMIT");
+            }
+            
+            assertEquals("a", writes.get(0).join());
+            assertEquals("b", writes.get(1).join());
+            assertEquals("c", writes.get(2).join());
+        }
+        
+        assertEquals(List.of("a", "b", "c", "taken"), names());
+        ContentionStats stats = transactionManager.getContentionStats();
+        assertTrue(stats.getBusyErrorCount() > 0);
+        assertTrue(stats.getRecoveredCount() > 0);
+        assertEquals(0, transactionManager.getWriteQueue().getFailedCount());
+    }
+}
@@ -0,0 +1,150 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.model.Role;
+
+/**
+ * Tests the bounds of the LRU cache and that it never keeps an entity loaded across an invalidation
+ */
+class LruEntityCacheTest {
+    
+    /** Estimated size of each test entity, besides the entry overhead */
+    private static final long ENTITY_BYTES = 100;
+    
+    @TempDir
+    Path dir;
+    
+    private TransactionManager transactionManager;
+    /** Stands in for the database */
+    private final Map<String, Role> rows = new HashMap<>();
+    private int loads;
+    
+    @BeforeEach
+    void setUp() {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve("test.db"));
+        transactionManager = new TransactionManager(dataSource);
+        for (int i = 1; i <= 5; i++) {
+            rows.put(String.valueOf(i), new Role(String.valueOf(i), "Role " + i, null, "Logistics"));
+        }
+    }
+    
+    @AfterEach
+    void tearDown() {
+        transactionManager.close();
+    }
+    
+    private LruEntityCache<Role> cache(int maxSize, long maxBytes) {
+        return new LruEntityCache<>(transactionManager, Role.class, Role::getId,
+                (role, identities) -> new Role(role.getId(), role.getTitle(), role.getDescription(), role.getDepartment()),
+                "test-roles", maxSize, role -> ENTITY_BYTES, maxBytes);
+    }
+    
+    private Optional<Role> load(String id) {
+        loads++;
+        Role row = rows.get(id);
+        return row == null ? Optional.empty()
+                : Optional.of(new Role(row.getId(), row.getTitle(), row.getDescription(), row.getDepartment()));
+    }
+    
+    @Test
+    void loadOverlappingAnInvalidationIsNotStored() {
+        LruEntityCache<Role> cache = cache(10, Long.MAX_VALUE);
+        
+        Optional<Role> stale = cache.find("1", id -> {
+            Optional<Role> role = load(id);
+            // The row is written while the old one is on its way back from the database
+            rows.get("1").setTitle("Changed");
+            cache.invalidate("1");
+            return role;
+        });
+        assertEquals("Role 1", stale.orElseThrow().getTitle());
+        assertEquals(0, cache.size());
+        
+        assertEquals("Changed", cache.find("1", this::load).orElseThrow().getTitle());
+        assertEquals("Changed", cache.find("1", this::load).orElseThrow().getTitle());
+        assertEquals(2, loads);
+    }
+    
+    @Test
+    void batchLoadOverlappingAnInvalidationIsNotStored() {
+        LruEntityCache<Role> cache = cache(10, Long.MAX_VALUE);
+        cache.find("1", this::load);
+        
+        Map<String, Role> found = cache.findAllByIds(List.of("1", "2", "3"), ids -> {
+            Map<String, Role> loaded = new HashMap<>();
+            for (String id : ids) {
+                load(id).ifPresent(role -> loaded.put(id, role));
+            }
+            cache.invalidate(null);
+            return loaded;
+        });
+        assertEquals(3, found.size());
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    void leastRecentlyUsedEntryIsEvictedBeyondMaxSize() {
+        LruEntityCache<Role> cache = cache(3, Long.MAX_VALUE);
+        cache.find("1", this::load);
+        cache.find("2", this::load);
+        cache.find("3", this::load);
+        // Use 1 again, so 2 is now the least recently used
+        cache.find("1", this::load);
+        cache.find("4", this::load);
+        
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getStats().getEvictionCount());
+        loads = 0;
+        cache.find("1", this::load);
+        cache.find("3", this::load);
+        cache.find("4", this::load);
+        assertEquals(0, loads);
+        cache.find("2", this::load);
+        assertEquals(1, loads);
+    }
+    
+    @Test
+    void estimatedMemoryStaysWithinTheLimit() {
+        long entryBytes = LruEntityCache.ENTRY_OVERHEAD_BYTES + ENTITY_BYTES;
+        LruEntityCache<Role> cache = cache(100, 2 * entryBytes + entryBytes / 2);
+        for (int i = 1; i <= 5; i++) {
+            cache.find(String.valueOf(i), this::load);
+        }
+        
+        assertEquals(2, cache.size());
+        assertEquals(2 * entryBytes, cache.estimatedBytes());
+        assertEquals(3, cache.getStats().getEvictionCount());
+        
+        cache.invalidate("5");
+        assertEquals(entryBytes, cache.estimatedBytes());
+        cache.invalidate(null);
+        assertEquals(0, cache.estimatedBytes());
+    }
+    
+    @Test
+    void callersGetTheirOwnCopies() {
+        LruEntityCache<Role> cache = cache(10, Long.MAX_VALUE);
+        Role first = cache.find("1", this::load).orElseThrow();
+        first.setTitle("Changed by caller");
+        
+        Role second = cache.find("1", this::load).orElseThrow();
+        assertNotSame(first, second);
+        assertEquals("Role 1", second.getTitle());
+        assertEquals(1, loads);
+    }
+}
@@ -0,0 +1,141 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.exception.DataAccessException;
+
+/**
+ * Tests that busy transactions are retried with backoff, and only until the deadline
+ */
+class RetryPolicyTest {
+    
+    @TempDir
+    Path dir;
+    
+    private String url;
+    private TransactionManager transactionManager;
+    private Connection locker;
+    
+    @BeforeEach
+    void setUp() throws SQLException {
+        url = "jdbc:sqlite:" + dir.resolve("test.db");
+        locker = DriverManager.getConnection(url);
+        try (Statement stmt = locker.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE items (id INTEGER PRIMARY KEY, name TEXT)");
+        }
+        
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl(url);
+        // Fail at once on a lock, so only the retry policy decides how long a write waits
+        dataSource.setBusyTimeout(0);
+        transactionManager = new TransactionManager(dataSource);
+    }
+    
+    @AfterEach
+    void tearDown() throws SQLException {
+        transactionManager.close();
+        locker.close();
+    }
+    
+    private void lock() throws SQLException {
+        try (Statement stmt = locker.createStatement()) {
+            stmt.execute("BEGIN EXCLUSIVE");
+        }
+    }
+    
+    private void unlock() throws SQLException {
+        try (Statement stmt = locker.createStatement()) {
+            stmt.execute("COMMIT");
+        }
+    }
+    
+    private void insert() {
+        transactionManager.executeInTransaction(conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                return stmt.executeUpdate("INSERT INTO items (name) VALUES ('x')");
+            } catch (SQLException e) {
+                throw new DataAccessException("Failed to insert", e);
+            }
+        });
+    }
+    
+    @Test
+    void backoffGrowsUpToTheMaximum() {
+        RetryPolicy policy = new RetryPolicy(10, 50, 1_000);
+        for (int i = 0; i < 100; i++) {
+            // Jittered within the upper half of the capped exponential wait
+            long first = policy.backoffMillis(1);
+            assertTrue(first >= 5 && first <= 10, "first backoff " + first);
+            long second = policy.backoffMillis(2);
+            assertTrue(second >= 10 && second <= 20, "second backoff " + second);
+            long late = policy.backoffMillis(40);
+            assertTrue(late >= 25 && late <= 50, "capped backoff " + late);
+        }
+    }
+    
+    @Test
+    void retriesStopAtTheDeadline() throws SQLException {
+        transactionManager.setRetryPolicy(new RetryPolicy(10, 50, 300));
+        lock();
+        
+        long start = System.nanoTime();
+        DataAccessException e = assertThrows(DataAccessException.class, this::insert);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        assertTrue(e.getMessage().startsWith("Database still busy"), e.getMessage());
+        assertTrue(TransactionManager.isBusy(e));
+        // Never sleeps past the deadline, and gives up well before the next retry would have run
+        assertTrue(elapsedMillis >= 250 && elapsedMillis < 1_000, "gave up after " + elapsedMillis + " ms");
+        
+        ContentionStats stats = transactionManager.getContentionStats();
+        assertTrue(stats.getBusyErrorCount() > 1);
+        assertEquals(1, stats.getFailedCount());
+        assertEquals(0, stats.getRecoveredCount());
+    }
+    
+    @Test
+    void writeSucceedsWhenTheLockIsReleasedBeforeTheDeadline() throws Exception {
+        transactionManager.setRetryPolicy(new RetryPolicy(10, 50, 5_000));
+        lock();
+        Thread releaser = new Thread(() -> {
+            try {
+                Thread.sleep(150);
+                unlock();
+            } catch (InterruptedException | SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        releaser.start();
+        
+        insert();
+        releaser.join();
+        
+        ContentionStats stats = transactionManager.getContentionStats();
+        assertEquals(1, stats.getRecoveredCount());
+        assertEquals(0, stats.getFailedCount());
+    }
+    
+    @Test
+    void noRetryPolicyFailsOnTheFirstBusyError() throws SQLException {
+        transactionManager.setRetryPolicy(RetryPolicy.NONE);
+        lock();
+        
+        DataAccessException e = assertThrows(DataAccessException.class, this::insert);
+        assertTrue(TransactionManager.isBusy(e));
+        assertEquals(1, transactionManager.getContentionStats().getBusyErrorCount());
+    }
+}
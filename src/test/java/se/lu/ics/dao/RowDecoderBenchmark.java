@@ -0,0 +1,261 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteDataSource;
+
+import se.lu.ics.exception.DataAccessException;
+import se.lu.ics.model.Applicant;
+import se.lu.ics.model.InterviewStatus;
+
+/**
+ * Rows per second read with and without RowDecoder. Not part of the regular build, since its name
+ * does not end in Test; run it with
+ * <pre>mvn test -Dtest=RowDecoderBenchmark</pre>
+ * It fills a database with applicants, recruitments and interviews whose dates are a mix of ISO text
+ * and the epoch-millisecond text the driver writes for setDate and setTimestamp, then times:
+ * the applicant and interview columns decoded the way the mappers did before RowDecoder
+ * (SELECT *, lookups by label, getDate and getTimestamp with exceptions as fallback, toUpperCase and valueOf),
+ * the same columns decoded through RowDecoder, and findAll of the DAOs, which also build the entity
+ * graph and resolve it through the identity map. The transaction manager has its default configuration.
+ * Prints the median of the measured rounds.
+ */
+class RowDecoderBenchmark {
+    
+    private static final int APPLICANTS = 50_000;
+    private static final int RECRUITMENTS = 2_000;
+    private static final int INTERVIEWS = 50_000;
+    private static final int WARMUP_ROUNDS = 4;
+    private static final int ROUNDS = 12;
+    
+    @TempDir
+    Path dir;
+    
+    /** Sink for decoded values, so the JIT cannot drop the decoding */
+    private long sink;
+    
+    @Test
+    void rowsPerSecond() throws SQLException {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + dir.resolve("bench.db"));
+        fill(dataSource);
+        
+        try (TransactionManager transactionManager = new TransactionManager(dataSource)) {
+            ApplicantDao applicantDao = new ApplicantDaoJdbc(transactionManager);
+            RecruitmentDao recruitmentDao = new RecruitmentDaoJdbc(transactionManager);
+            InterviewDao interviewDao = new InterviewDaoJdbc(transactionManager);
+            
+            // The old mappers printed an error line for every date they could not read
+            PrintStream err = System.err;
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                report("applicants, before", () -> transactionManager.executeReadOnly(this::decodeApplicantsBefore));
+                report("applicants, after", () -> transactionManager.executeReadOnly(this::decodeApplicantsAfter));
+                report("interviews, before", () -> transactionManager.executeReadOnly(this::decodeInterviewsBefore));
+                report("interviews, after", () -> transactionManager.executeReadOnly(this::decodeInterviewsAfter));
+                report("applicants, findAll", () -> applicantDao.findAll().size());
+                report("recruitments, findAll", () -> recruitmentDao.findAll().size());
+                report("interviews, findAll", () -> interviewDao.findAll().size());
+            } finally {
+                System.setErr(err);
+            }
+        }
+    }
+    
+    /**
+     * Time a read and print its median throughput
+     * @param name What is read
+     * @param read Reads the rows and returns how many it read
+     */
+    private void report(String name, Supplier<Integer> read) {
+        double[] rowsPerSecond = new double[ROUNDS];
+        for (int round = -WARMUP_ROUNDS; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            int rows = read.get();
+            long nanos = System.nanoTime() - start;
+            if (round >= 0) {
+                rowsPerSecond[round] = rows / (nanos / 1e9);
+            }
+        }
+        Arrays.sort(rowsPerSecond);
+        System.out.printf("%-24s %,12.0f rows/s%n", name, rowsPerSecond[ROUNDS / 2]);
+    }
+    
+    private void fill(SQLiteDataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate("CREATE TABLE roles (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, " +
+                                   "description TEXT, department TEXT)");
+                stmt.executeUpdate("CREATE TABLE recruitments (id TEXT PRIMARY KEY, role_id INTEGER NOT NULL, " +
+                                   "application_deadline TEXT NOT NULL, posting_date TEXT NOT NULL, " +
+                                   "offer_acceptance_date TEXT, status TEXT NOT NULL)");
+                stmt.executeUpdate("CREATE TABLE applicants (id TEXT PRIMARY KEY, first_name TEXT NOT NULL, " +
+                                   "last_name TEXT NOT NULL, email TEXT NOT NULL, phone TEXT, " +
+                                   "application_date TEXT NOT NULL, rank INTEGER DEFAULT 0)");
+                stmt.executeUpdate("CREATE TABLE applications (applicant_id TEXT NOT NULL, recruitment_id TEXT NOT NULL, " +
+                                   "application_date TEXT NOT NULL, PRIMARY KEY (applicant_id, recruitment_id))");
+                stmt.executeUpdate("CREATE TABLE interviews (id TEXT PRIMARY KEY, recruitment_id TEXT NOT NULL, " +
+                                   "applicant_id TEXT NOT NULL, date_time TEXT NOT NULL, location TEXT, " +
+                                   "interviewer TEXT, status TEXT NOT NULL, notes TEXT)");
+                stmt.executeUpdate("INSERT INTO roles (title, description, department) " +
+                                   "VALUES ('Driver', 'Drives', 'Logistics')");
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO recruitments VALUES (?, 1, ?, ?, NULL, ?)")) {
+                for (int i = 0; i < RECRUITMENTS; i++) {
+                    pstmt.setString(1, "LOG " + i);
+                    pstmt.setString(2, "2025-06-17");
+                    pstmt.setString(3, i % 3 == 0 ? "2025-05-21 10:00:00" : "2025-05-21");
+                    pstmt.setString(4, i % 2 == 0 ? "OPEN" : "FILLED");
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO applicants VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < APPLICANTS; i++) {
+                    pstmt.setString(1, "APP-" + i);
+                    pstmt.setString(2, "First" + i);
+                    pstmt.setString(3, "Last" + i);
+                    pstmt.setString(4, "applicant" + i + "@example.se");
+                    pstmt.setString(5, "070" + i);
+                    pstmt.setString(6, i % 4 == 0 ? "2025-05-20" : "1747778400000");
+                    pstmt.setInt(7, i % 5);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "INSERT INTO interviews VALUES (?, ?, ?, ?, 'Room 1', 'Interviewer', ?, 'Notes')")) {
+                for (int i = 0; i < INTERVIEWS; i++) {
+                    pstmt.setString(1, "INT-" + i);
+                    pstmt.setString(2, "LOG " + (i % RECRUITMENTS));
+                    pstmt.setString(3, "APP-" + (i % APPLICANTS));
+                    pstmt.setString(4, i % 4 == 0 ? "2025-05-20 10:30:00" : "1747862523144");
+                    pstmt.setString(5, i % 2 == 0 ? "SCHEDULED" : "Completed");
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            conn.commit();
+        }
+    }
+    
+    // ========== Before: the mapping the DAOs used until RowDecoder ==========
+    
+    private int decodeApplicantsBefore(Connection conn) {
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM applicants");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString("id");
+                LocalDate applicationDate;
+                try {
+                    java.sql.Date date = rs.getDate("application_date");
+                    if (date != null) {
+                        applicationDate = date.toLocalDate();
+                    } else {
+                        long timestamp = rs.getLong("application_date");
+                        applicationDate = java.time.Instant.ofEpochMilli(timestamp)
+                            .atZone(java.time.ZoneId.systemDefault())
+                            .toLocalDate();
+                    }
+                } catch (Exception e) {
+                    applicationDate = LocalDate.now();
+                    System.err.println("Error parsing date for applicant " + id + ": " + e.getMessage());
+                }
+                Applicant applicant = new Applicant(id, rs.getString("first_name"), rs.getString("last_name"),
+                                                    rs.getString("email"), rs.getString("phone"),
+                                                    applicationDate, rs.getInt("rank"));
+                sink += applicant.getApplicationDate().getDayOfYear();
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading applicants", e);
+        }
+        assertEquals(APPLICANTS, rows);
+        return rows;
+    }
+    
+    private int decodeInterviewsBefore(Connection conn) {
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT * FROM interviews");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString("id");
+                LocalDateTime dateTime;
+                try {
+                    dateTime = rs.getTimestamp("date_time").toLocalDateTime();
+                } catch (SQLException | NullPointerException e) {
+                    System.err.println("Error parsing date time for interview " + id + ": " + e.getMessage());
+                    dateTime = LocalDateTime.now();
+                }
+                String statusStr = rs.getString("status");
+                InterviewStatus status = InterviewStatus.valueOf(statusStr.toUpperCase());
+                sink += id.length() + rs.getString("recruitment_id").length() + rs.getString("applicant_id").length()
+                        + rs.getString("location").length() + rs.getString("interviewer").length()
+                        + rs.getString("notes").length() + dateTime.getMinute() + status.ordinal();
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading interviews", e);
+        }
+        assertEquals(INTERVIEWS, rows);
+        return rows;
+    }
+    
+    // ========== After: the same columns through RowDecoder ==========
+    
+    private int decodeApplicantsAfter(Connection conn) {
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT id, first_name, last_name, email, phone, application_date, rank FROM applicants");
+             ResultSet rs = pstmt.executeQuery()) {
+            RowDecoder row = new RowDecoder(rs, "", ApplicantDaoJdbc.COLUMNS);
+            while (rs.next()) {
+                sink += ApplicantDaoJdbc.map(row).getApplicationDate().getDayOfYear();
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading applicants", e);
+        }
+        assertEquals(APPLICANTS, rows);
+        return rows;
+    }
+    
+    private int decodeInterviewsAfter(Connection conn) {
+        InterviewStatus[] statuses = InterviewStatus.values();
+        int rows = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT id, recruitment_id, applicant_id, date_time, location, interviewer, status, notes FROM interviews");
+             ResultSet rs = pstmt.executeQuery()) {
+            RowDecoder row = new RowDecoder(rs, "", new String[] {"id", "recruitment_id", "applicant_id", "date_time",
+                                                                  "location", "interviewer", "status", "notes"});
+            while (rs.next()) {
+                sink += row.getString(0).length() + row.getString(1).length() + row.getString(2).length()
+                        + row.getString(4).length() + row.getString(5).length() + row.getString(7).length()
+                        + row.getDateTime(3).getMinute() + row.getEnum(6, statuses).ordinal();
+                rows++;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading interviews", e);
+        }
+        assertEquals(INTERVIEWS, rows);
+        return rows;
+    }
+}
@@ -0,0 +1,158 @@
+package se.lu.ics.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import org.junit.jupiter.api.Test;
+
+import se.lu.ics.model.InterviewStatus;
+
+/**
+ * Tests the date, epoch-millisecond and enum parsers of RowDecoder, and reading columns by label
+ */
+class RowDecoderTest {
+    
+    private enum Color { RED, DARK_BLUE }
+    
+    private static final long EPOCH_MILLIS = 1747778400000L;
+    
+    @Test
+    void parsesIsoDates() {
+        assertEquals(LocalDate.of(2025, 5, 21), RowDecoder.parseDate("2025-05-21"));
+        assertEquals(LocalDate.of(2024, 2, 29), RowDecoder.parseDate("2024-02-29"));
+        // The time part is ignored
+        assertEquals(LocalDate.of(2025, 5, 21), RowDecoder.parseDate("2025-05-21 10:30:00"));
+        assertEquals(LocalDate.of(2025, 5, 21), RowDecoder.parseDate("2025-05-21T10:30"));
+    }
+    
+    @Test
+    void invalidDatesDecodeToNull() {
+        assertNull(RowDecoder.parseDate(null));
+        assertNull(RowDecoder.parseDate(""));
+        assertNull(RowDecoder.parseDate("2023-02-29"));
+        assertNull(RowDecoder.parseDate("2025-04-31"));
+        assertNull(RowDecoder.parseDate("2025-13-01"));
+        assertNull(RowDecoder.parseDate("2025-00-10"));
+        assertNull(RowDecoder.parseDate("21/05/2025"));
+        assertNull(RowDecoder.parseDate("2025-5-21"));
+        assertNull(RowDecoder.parseDate("not a date"));
+    }
+    
+    @Test
+    void parsesEpochMillis() {
+        Instant instant = Instant.ofEpochMilli(EPOCH_MILLIS);
+        assertEquals(instant.atZone(ZoneId.systemDefault()).toLocalDate(),
+                     RowDecoder.parseDate(String.valueOf(EPOCH_MILLIS)));
+        assertEquals(LocalDateTime.ofInstant(instant, ZoneId.systemDefault()),
+                     RowDecoder.parseDateTime(String.valueOf(EPOCH_MILLIS)));
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(10_000_000_000L), ZoneId.systemDefault()),
+                     RowDecoder.parseDateTime("10000000000"));
+    }
+    
+    @Test
+    void invalidEpochMillisDecodeToNull() {
+        assertNull(RowDecoder.parseDate("-1747778400000"));
+        assertNull(RowDecoder.parseDate("1747778400000.5"));
+        assertNull(RowDecoder.parseDateTime(" 1747778400000"));
+        // Too long to be epoch milliseconds, and could overflow a long
+        assertNull(RowDecoder.parseDateTime("1234567890123456789"));
+        assertNull(RowDecoder.parseDateTime("12345678901234"));
+        // Too short: a year or a compact date is not a time in 1970
+        assertNull(RowDecoder.parseDate("2025"));
+        assertNull(RowDecoder.parseDate("20250521"));
+        assertNull(RowDecoder.parseDateTime("20250521"));
+        assertNull(RowDecoder.parseDateTime("0"));
+    }
+    
+    @Test
+    void parsesIsoDateTimes() {
+        assertEquals(LocalDateTime.of(2025, 5, 21, 0, 0), RowDecoder.parseDateTime("2025-05-21"));
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30), RowDecoder.parseDateTime("2025-05-21 10:30"));
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30, 15), RowDecoder.parseDateTime("2025-05-21T10:30:15"));
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30, 15, 123_000_000),
+                     RowDecoder.parseDateTime("2025-05-21 10:30:15.123"));
+        assertEquals(LocalDateTime.of(2025, 5, 21, 23, 59, 59, 123_456_789),
+                     RowDecoder.parseDateTime("2025-05-21T23:59:59.123456789"));
+        // Digits beyond nanoseconds are dropped
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30, 15, 123_456_789),
+                     RowDecoder.parseDateTime("2025-05-21T10:30:15.1234567899"));
+    }
+    
+    @Test
+    void invalidDateTimesDecodeToNull() {
+        assertNull(RowDecoder.parseDateTime(null));
+        assertNull(RowDecoder.parseDateTime(""));
+        assertNull(RowDecoder.parseDateTime("2025-05-21 24:00"));
+        assertNull(RowDecoder.parseDateTime("2025-05-21 10:60"));
+        assertNull(RowDecoder.parseDateTime("2025-05-21 10:30:60"));
+        assertNull(RowDecoder.parseDateTime("2025-05-21X10:30"));
+        assertNull(RowDecoder.parseDateTime("2025-05-21 10"));
+        assertNull(RowDecoder.parseDateTime("2025-05-21 1a:30"));
+        assertNull(RowDecoder.parseDateTime("2025-02-30 10:30"));
+    }
+    
+    @Test
+    void fractionStopsAtNonAsciiDigits() {
+        // Arabic-Indic digits are digits to Character.isDigit but not to the parser
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30, 15, 500_000_000),
+                     RowDecoder.parseDateTime("2025-05-21 10:30:15.5١٢"));
+        assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30, 15),
+                     RowDecoder.parseDateTime("2025-05-21 10:30:15.١٢٣"));
+    }
+    
+    @Test
+    void parsesEnumsIgnoringCaseAndSpaces() {
+        assertEquals(InterviewStatus.SCHEDULED, RowDecoder.parseEnum("SCHEDULED", InterviewStatus.values()));
+        assertEquals(InterviewStatus.COMPLETED, RowDecoder.parseEnum("Completed", InterviewStatus.values()));
+        assertEquals(InterviewStatus.CANCELLED, RowDecoder.parseEnum("cancelled", InterviewStatus.values()));
+        assertEquals(Color.DARK_BLUE, RowDecoder.parseEnum("Dark Blue", Color.values()));
+        assertEquals(Color.DARK_BLUE, RowDecoder.parseEnum("dark_blue", Color.values()));
+    }
+    
+    @Test
+    void unknownEnumsDecodeToNull() {
+        assertNull(RowDecoder.parseEnum(null, Color.values()));
+        assertNull(RowDecoder.parseEnum("", Color.values()));
+        assertNull(RowDecoder.parseEnum("REDDISH", Color.values()));
+        assertNull(RowDecoder.parseEnum("darkblue", Color.values()));
+        assertNull(RowDecoder.parseEnum("dark-blue", Color.values()));
+        assertNull(RowDecoder.parseEnum(" RED", Color.values()));
+    }
+    
+    @Test
+    void readsColumnsByPrefixedLabel() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 'x' AS other, 'Red' AS c_color, '2025-05-21 10:30' AS c_at, " +
+                                              "'" + EPOCH_MILLIS + "' AS c_day, 7 AS c_count")) {
+            rs.next();
+            RowDecoder row = new RowDecoder(rs, "c_", new String[] {"day", "at", "color", "count"});
+            
+            assertEquals(RowDecoder.parseDate(String.valueOf(EPOCH_MILLIS)), row.getDate(0));
+            assertEquals(LocalDateTime.of(2025, 5, 21, 10, 30), row.getDateTime(1));
+            assertEquals(Color.RED, row.getEnum(2, Color.values()));
+            assertEquals(7, row.getInt(3));
+            assertEquals("Red", row.getString(2));
+        }
+    }
+    
+    @Test
+    void unknownLabelFailsWhenTheDecoderIsCreated() throws SQLException {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT 1 AS id")) {
+            assertThrows(SQLException.class, () -> new RowDecoder(rs, "a_", new String[] {"id"}));
+        }
+    }
+}